@@ -0,0 +1,226 @@
+package com.quizgenix.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Dedicated HTTP client for the AI provider.
+ * One keep-alive pool is shared by every quiz generation, so repeated calls
+ * reuse the same TLS connection instead of handshaking each time.
+ */
+@Configuration
+public class AiHttpClientConfig {
+
+    @Value("${ai.http.max-total:20}")
+    private int maxTotal;
+
+    @Value("${ai.http.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${ai.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${ai.http.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${ai.http.lease-timeout-ms:3000}")
+    private long leaseTimeoutMs;
+
+    @Value("${ai.http.total-timeout-ms:90000}")
+    private long totalTimeoutMs;
+
+    @Value("${ai.http.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+
+    @Value("${ai.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager aiConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public HttpClient aiHttpClient(PoolingHttpClientConnectionManager aiConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(leaseTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(aiConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate aiRestTemplate(HttpClient aiHttpClient) {
+        return new RestTemplate(new DeadlineRequestFactory(aiHttpClient, totalTimeoutMs));
+    }
+
+    // Aborts any request that is still running after the total deadline,
+    // even if the provider keeps trickling bytes under the read timeout.
+    // The deadline is cancelled as soon as the response is closed or the call fails.
+    // Requests are also handed to the caller's AiRequestScope (hedge cancellation).
+    private static class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "ai-http-deadline");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            WATCHDOG.setRemoveOnCancelPolicy(true); // Finished requests leave no task behind
+        }
+
+        // Hands the request built by createHttpUriRequest to createRequest on the same thread
+        private static final ThreadLocal<Cancellable> CREATED = new ThreadLocal<>();
+
+        private final long totalTimeoutMs;
+
+        DeadlineRequestFactory(HttpClient httpClient, long totalTimeoutMs) {
+            super(httpClient);
+            this.totalTimeoutMs = totalTimeoutMs;
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ClientHttpRequest request;
+            Cancellable cancellable;
+            try {
+                request = super.createRequest(uri, httpMethod);
+                cancellable = CREATED.get();
+            } finally {
+                CREATED.remove();
+            }
+            if (cancellable == null || totalTimeoutMs <= 0) {
+                return request;
+            }
+            ScheduledFuture<?> deadline = WATCHDOG.schedule(cancellable::cancel, totalTimeoutMs, TimeUnit.MILLISECONDS);
+            return new DeadlineRequest(request, deadline);
+        }
+
+        @Override
+        protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+            ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+            if (request instanceof Cancellable cancellable) {
+                CREATED.set(cancellable);
+                AiRequestScope.register(cancellable);
+            }
+            return request;
+        }
+    }
+
+    private record DeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> deadline) implements ClientHttpRequest {
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            boolean executed = false;
+            try {
+                ClientHttpResponse response = delegate.execute();
+                executed = true;
+                return new DeadlineResponse(response, deadline);
+            } finally {
+                if (!executed) {
+                    deadline.cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+    }
+
+    // The body is streamed after execute() returns, so the deadline ends with close()
+    private record DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+    }
+}
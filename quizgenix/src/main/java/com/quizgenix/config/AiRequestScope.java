@@ -0,0 +1,58 @@
+package com.quizgenix.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+/**
+ * Collects the HTTP requests a thread sends to the AI, so another thread can
+ * abort them (e.g. the losing side of a hedged request).
+ * Blocking socket reads ignore Thread.interrupt(); cancelling the request does not.
+ */
+public class AiRequestScope implements AutoCloseable {
+
+    private static final ThreadLocal<AiRequestScope> CURRENT = new ThreadLocal<>();
+
+    private final List<Cancellable> requests = new ArrayList<>();
+    private boolean cancelled;
+
+    // Requests created on the calling thread until close() belong to this scope
+    public AiRequestScope enter() {
+        CURRENT.set(this);
+        return this;
+    }
+
+    // Called by the request factory for every request it creates
+    static void register(Cancellable request) {
+        AiRequestScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.add(request);
+        }
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        requests.forEach(Cancellable::cancel);
+        requests.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    private synchronized void add(Cancellable request) {
+        if (cancelled) {
+            request.cancel();
+        } else {
+            requests.add(request);
+        }
+    }
+}
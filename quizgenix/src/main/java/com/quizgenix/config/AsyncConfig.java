@@ -0,0 +1,80 @@
+package com.quizgenix.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded worker pool for quiz generation.
+ * The slow LLM round trip runs here instead of on a Tomcat request thread.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${quiz.generation.pool-size:4}")
+    private int poolSize;
+
+    @Value("${quiz.generation.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${ai.chunk.pool-size:6}")
+    private int chunkPoolSize;
+
+    @Value("${ai.hedge.pool-size:12}")
+    private int hedgePoolSize;
+
+    @Value("${quiz.account-deletion.pool-size:1}")
+    private int deletionPoolSize;
+
+    @Bean
+    public ThreadPoolTaskExecutor quizGenerationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("quiz-gen-");
+        // A full queue is rejected (TaskRejectedException) so the user gets a "busy" message
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Parallel chunks of one large generation; a full pool runs the chunk on the caller
+    @Bean
+    public ThreadPoolTaskExecutor aiChunkExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(chunkPoolSize);
+        executor.setMaxPoolSize(chunkPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ai-chunk-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Provider attempts (primary + hedge); when full, the attempt runs on the caller without a hedge
+    @Bean
+    public ThreadPoolTaskExecutor aiHedgeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hedgePoolSize);
+        executor.setMaxPoolSize(hedgePoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ai-call-");
+        return executor;
+    }
+
+    // Background deletion of large accounts; a full queue is rejected and the user retries later
+    @Bean
+    public ThreadPoolTaskExecutor accountDeletionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(deletionPoolSize);
+        executor.setMaxPoolSize(deletionPoolSize);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("account-delete-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -47,7 +47,8 @@ public class SecurityConfig {
                                                 // 3. Public Pages
                                                 .requestMatchers("/", "/login", "/register", "/verify",
                                                                 "/forgot-password/**",
-                                                                "/new-password", "/pricing", "/about", "/contact")
+                                                                "/new-password", "/pricing", "/about", "/contact",
+                                                                "/account-deletion/**")
                                                 .permitAll()
                                                 .anyRequest().authenticated())
 
@@ -3,7 +3,8 @@ package com.quizgenix.controller;
 import java.security.Principal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,10 +24,12 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.quizgenix.model.ContactMessage;
 import com.quizgenix.model.Quiz;
 import com.quizgenix.model.User;
+import com.quizgenix.model.UserStats;
 import com.quizgenix.repository.QuizRepository;
-import com.quizgenix.repository.UserRepository;
 import com.quizgenix.service.ContactService;
+import com.quizgenix.service.LeaderboardService;
 import com.quizgenix.service.UserService;
+import com.quizgenix.service.UserStatsService;
 
 @Controller
 public class PageController {
@@ -38,10 +41,13 @@ public class PageController {
     private QuizRepository quizRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ContactService contactService;
 
     @Autowired
-    private ContactService contactService;
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
 
     // 🟢 1. UPDATED HELPER: Returns 'User' so we can use it in logic
     private User addUserToModel(Model model, Principal principal) {
@@ -104,31 +110,36 @@ public class PageController {
         if (user == null)
             return "redirect:/login";
 
-        // 2. Fetch Stats
-        long quizCount = quizRepository.countByUser(user);
-        Double avg = quizRepository.findAverageScoreByUser(user);
-        int avgScore = (avg != null) ? (int) Math.round(avg) : 0;
-        long rank = userRepository.countUsersWithMoreXp(user.getTotalXp()) + 1;
+        // 2. Fetch Stats (one row, maintained as quizzes are created and scored)
+        UserStats stats = userStatsService.get(user.getId());
+        long rank = leaderboardService.rank(user);
 
-        // 3. Monthly Limit
-        LocalDateTime firstDayOfMonth = LocalDateTime.now().withDayOfMonth(1).with(LocalTime.MIN);
-        long monthlyCount = quizRepository.countByUserAndCreatedAtAfter(user, firstDayOfMonth);
+        // 3. Fetch Lists
+        List<User> topPlayers = leaderboardService.top(5);
+        List<Quiz> recentQuizzes = recentQuizzes(stats.getRecentQuizIdList());
 
-        // 4. Fetch Lists
-        List<User> topPlayers = userRepository.findTop5ByOrderByTotalXpDesc();
-        List<Quiz> recentQuizzes = quizRepository.findTop5ByUserOrderByCreatedAtDesc(user);
-
-        // 5. Add Attributes
-        model.addAttribute("quizzesCompleted", quizCount);
-        model.addAttribute("averageScore", avgScore);
+        // 4. Add Attributes
+        model.addAttribute("quizzesCompleted", stats.getQuizCount());
+        model.addAttribute("averageScore", stats.getAverageScore());
+        model.addAttribute("bestTopic", stats.getBestTopic());
         model.addAttribute("globalRank", rank);
-        model.addAttribute("quizzesThisMonth", monthlyCount);
+        model.addAttribute("quizzesThisMonth", stats.getQuizzesThisMonth());
         model.addAttribute("topPlayers", topPlayers);
         model.addAttribute("recentQuizzes", recentQuizzes);
 
         return "dashboard";
     }
 
+    // Primary-key lookups, returned newest first like the stored ids
+    private List<Quiz> recentQuizzes(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Quiz> quizzes = new ArrayList<>(quizRepository.findAllById(ids));
+        quizzes.sort(Comparator.comparingInt(q -> ids.indexOf(q.getId())));
+        return quizzes;
+    }
+
     @GetMapping("/quiz")
     public String quiz(Model model, Principal principal) {
         addUserToModel(model, principal);
@@ -149,12 +160,15 @@ public class PageController {
         if (currentUser == null)
             return "redirect:/login";
 
-        List<User> leaderboard = userRepository.findTop20ByOrderByTotalXpDesc();
-        long myRank = userRepository.countUsersWithMoreXp(currentUser.getTotalXp()) + 1;
+        // Ranks and ordering come from the in-memory index; no scan or sort of users
+        List<User> leaderboard = leaderboardService.top(20);
+        long myRank = leaderboardService.rank(currentUser);
 
         model.addAttribute("leaderboard", leaderboard);
         model.addAttribute("currentUser", currentUser);
         model.addAttribute("myRank", myRank);
+        // Players just above and below, when the user is not on the top 20
+        model.addAttribute("aroundMe", myRank > leaderboard.size() ? leaderboardService.around(currentUser, 3) : List.of());
 
         return "leaderboard";
     }
@@ -178,7 +192,8 @@ public class PageController {
 
         // 3. Determine Date Range Logic
         LocalDateTime start;
-        LocalDateTime end = (endDate != null) ? endDate.atTime(23, 59, 59) : LocalDateTime.now();
+        // Exclusive end: the whole of endDate, up to midnight of the next day
+        LocalDateTime end = (endDate != null) ? endDate.plusDays(1).atStartOfDay() : LocalDateTime.now();
 
         if (startDate != null) {
             // If User selected a date
@@ -201,7 +216,7 @@ public class PageController {
 
         // 4. Fetch Data with Pagination
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Quiz> quizPage = quizRepository.findByUserAndCreatedAtBetween(user, start, end, pageable);
+        Page<Quiz> quizPage = quizRepository.findInWindow(user, start, end, pageable);
 
         // 5. Add Attributes to Model
         model.addAttribute("quizzes", quizPage.getContent()); // The List
@@ -18,6 +18,7 @@ import com.quizgenix.model.Payment;
 import com.quizgenix.model.User;
 import com.quizgenix.repository.PaymentRepository;
 import com.quizgenix.service.EmailService;
+import com.quizgenix.service.GenerationRateLimiter;
 import com.quizgenix.service.UserService;
 import com.razorpay.Order;
 import com.razorpay.RazorpayClient;
@@ -31,6 +32,8 @@ public class PaymentController {
     private UserService userService;
     @Autowired
     private PaymentRepository paymentRepository;
+    @Autowired
+    private GenerationRateLimiter generationRateLimiter;
 
     @Value("${razorpay.key.id}")
     private String keyId;
@@ -144,6 +147,7 @@ public class PaymentController {
                     user.setCurrentPlanPrice(actualPlanValue); // Store REAL value
 
                     userService.save(user);
+                    generationRateLimiter.reset(user); // Next generation gets the paid bucket size
 
                     Payment payment = new Payment();
                     payment.setOrderId(orderId);
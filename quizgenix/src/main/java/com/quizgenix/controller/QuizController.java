@@ -2,13 +2,13 @@ package com.quizgenix.controller;
 
 import java.io.ByteArrayInputStream;
 import java.security.Principal;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -17,15 +17,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes; // Needed for error messages
 
+import com.quizgenix.exception.SubmissionBusyException;
 import com.quizgenix.model.Quiz;
 import com.quizgenix.model.User;
 import com.quizgenix.repository.QuizRepository;
+import com.quizgenix.service.GenerationRateLimiter;
+import com.quizgenix.service.QuizGenerationJobService;
+import com.quizgenix.service.QuizGenerationJobService.GenerationJob;
 import com.quizgenix.service.QuizPdfService;
 import com.quizgenix.service.QuizService;
+import com.quizgenix.service.QuizService.ScoreResult;
+import com.quizgenix.service.SubmissionPipeline;
 import com.quizgenix.service.UserService;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @Controller
 public class QuizController {
 
@@ -41,35 +51,60 @@ public class QuizController {
     @Autowired
     private QuizPdfService pdfService;
 
+    @Autowired
+    private QuizGenerationJobService generationJobService;
+
+    @Autowired
+    private GenerationRateLimiter generationRateLimiter;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
     // --- 1. GENERATE QUIZ ---
     @PostMapping("/generate-quiz")
     public String generateQuiz(@RequestParam String topic,
             @RequestParam String difficulty,
             @RequestParam int count,
+            @RequestParam(defaultValue = "false") boolean fresh,
             Principal principal,
+            HttpServletResponse response,
+            Model model,
             RedirectAttributes redirectAttributes) {
 
         try {
             User user = userService.findByEmail(principal.getName());
 
-            // Check Plan Limits
+            // Burst protection (per user + shared provider quota)
+            long retryAfter = generationRateLimiter.tryAcquire(user);
+            if (retryAfter > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+                model.addAttribute("errorCode", "429");
+                model.addAttribute("errorTitle", "Slow Down");
+                model.addAttribute("errorMessage",
+                        "You're generating quizzes too quickly. Please try again in " + retryAfter + " seconds.");
+                model.addAttribute("errorIcon", "⏳");
+                return "error";
+            }
+
+            // Check Plan Limits (atomically with queuing the job, so parallel requests cannot overshoot)
             String plan = user.getActivePlan();
             if (plan == null)
                 plan = "free";
 
+            // Generation runs in the background; the waiting page polls the job
+            GenerationJob job;
             if (plan.equalsIgnoreCase("free")) {
-                LocalDateTime firstDayOfMonth = LocalDateTime.now().withDayOfMonth(1).with(LocalTime.MIN);
-                long monthlyCount = quizRepository.countByUserAndCreatedAtAfter(user, firstDayOfMonth);
-
-                if (monthlyCount >= 10) {
+                job = generationJobService.submit(topic, difficulty, count, user, fresh, 10);
+                if (job == null) {
                     redirectAttributes.addFlashAttribute("error",
                             "🔒 Limit Reached: You have used your 10 free quizzes for this month.");
                     return "redirect:/dashboard";
                 }
+            } else {
+                job = generationJobService.submit(topic, difficulty, count, user, fresh);
             }
-
-            Quiz quiz = quizService.createQuiz(topic, difficulty, count, user);
-            return "redirect:/quiz/" + quiz.getId();
+            return "redirect:/quiz/generating/" + job.getId();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -78,10 +113,78 @@ public class QuizController {
         }
     }
 
+    // --- 1b. WAITING PAGE (polls the job until the quiz is ready) ---
+    @GetMapping("/quiz/generating/{jobId}")
+    public String showGeneratingPage(@PathVariable String jobId, Model model, Principal principal) {
+        User user = userService.findByEmail(principal.getName());
+        GenerationJob job = generationJobService.getJob(jobId);
+
+        if (job == null || !job.getUserId().equals(user.getId())) {
+            return "redirect:/dashboard";
+        }
+
+        model.addAttribute("user", user);
+        model.addAttribute("jobId", jobId);
+        return "quiz-generating";
+    }
+
+    // --- 1c. JOB STATUS (queued / running / done / failed) ---
+    @GetMapping("/quiz/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getJobStatus(@PathVariable String jobId, Principal principal) {
+        User user = userService.findByEmail(principal.getName());
+        GenerationJob job = generationJobService.getJob(jobId);
+
+        if (job == null || !job.getUserId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", job.getId());
+        data.put("status", job.getStatus().name().toLowerCase());
+        data.put("quizId", job.getQuizId());
+        data.put("error", job.getError());
+        if (job.getQuizId() != null) {
+            data.put("redirectUrl", "/quiz/" + job.getQuizId());
+        }
+        return ResponseEntity.ok(data);
+    }
+
+    // --- 1d. LIVE QUESTION STREAM (SSE while the AI is still writing) ---
+    @GetMapping(value = "/quiz/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId, Principal principal) {
+        User user = userService.findByEmail(principal.getName());
+        GenerationJob job = generationJobService.getJob(jobId);
+
+        if (job == null || !job.getUserId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(generationJobService.subscribe(job));
+    }
+
+    // --- 1e. EXPLANATION OF A STREAMED QUESTION (after it was answered or timed out) ---
+    @GetMapping("/quiz/jobs/{jobId}/questions/{index}/explanation")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStreamedExplanation(@PathVariable String jobId,
+            @PathVariable int index, Principal principal) {
+        User user = userService.findByEmail(principal.getName());
+        GenerationJob job = generationJobService.getJob(jobId);
+
+        if (job == null || !job.getUserId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("explanation", generationJobService.getExplanation(job, index));
+        return ResponseEntity.ok(data);
+    }
+
     // --- 2. SHOW QUIZ ---
     @GetMapping("/quiz/{id}")
     public String showQuizPage(@PathVariable Long id, Model model, Principal principal) {
         try {
+            // Looked up before the quiz so a job finishing in between still replays over SSE
+            GenerationJob liveJob = generationJobService.findStreamingJob(id);
             Quiz quiz = quizService.getQuizById(id);
             if (principal != null) {
                 User user = userService.findByEmail(principal.getName());
@@ -93,6 +196,9 @@ public class QuizController {
                 }
             }
             model.addAttribute("quiz", quiz);
+
+            // Questions are still arriving: the page fills itself from the SSE stream
+            model.addAttribute("liveJobId", liveJob != null ? liveJob.getId() : null);
             return "quiz";
         } catch (Exception e) {
             return "redirect:/dashboard";
@@ -103,13 +209,19 @@ public class QuizController {
     @PostMapping("/quiz/submit")
     public String submitQuiz(@RequestParam Long quizId,
             @RequestParam Map<String, String> allParams,
-            Model model) {
-        int score = quizService.calculateScore(quizId, allParams);
-        Quiz quiz = quizService.getQuizById(quizId);
+            Model model,
+            RedirectAttributes redirectAttributes) {
+        ScoreResult result;
+        try {
+            result = quizService.scoreQuiz(quizId, allParams);
+        } catch (SubmissionBusyException e) {
+            redirectAttributes.addFlashAttribute("error", "⚠️ " + e.getMessage() + " Please submit again in a moment.");
+            return "redirect:/dashboard";
+        }
 
-        model.addAttribute("score", score);
-        model.addAttribute("total", quiz.getTotalQuestions());
-        model.addAttribute("quiz", quiz);
+        model.addAttribute("score", result.score());
+        model.addAttribute("total", result.totalQuestions());
+        model.addAttribute("difficulty", result.difficulty());
 
         return "result";
     }
@@ -128,8 +240,9 @@ public class QuizController {
             // 1. Identify the requester
             User requester = userService.findByEmail(principal.getName());
 
-            // 2. Find the resource
-            Quiz quiz = quizRepository.findById(id).orElse(null);
+            // 2. Find the resource (after its submission, if one is still being saved)
+            submissionPipeline.awaitPersisted(id);
+            Quiz quiz = quizRepository.findWithUserAndQuestionsById(id).orElse(null);
 
             if (quiz == null) {
                 redirectAttributes.addFlashAttribute("error", "⚠️ Quiz not found.");
@@ -172,6 +285,7 @@ public class QuizController {
             User user = userService.findByEmail(principal.getName());
             model.addAttribute("user", user);
 
+            submissionPipeline.awaitPersisted(id); // Just submitted: show the saved answers
             Quiz quiz = quizService.getQuizById(id);
 
             // 🔒 SECURITY CHECK
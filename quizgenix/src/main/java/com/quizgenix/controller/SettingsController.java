@@ -232,25 +232,26 @@
 package com.quizgenix.controller;
 
 import java.security.Principal;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.quizgenix.model.Payment;
-import com.quizgenix.model.Question;
-import com.quizgenix.model.Quiz;
 import com.quizgenix.model.User;
-import com.quizgenix.repository.PaymentRepository;
-import com.quizgenix.repository.QuestionRepository;
-import com.quizgenix.repository.QuizRepository;
 import com.quizgenix.repository.UserRepository;
+import com.quizgenix.service.AccountDeletionService;
+import com.quizgenix.service.AccountDeletionService.DeletionJob;
 import com.quizgenix.service.EmailService;
 import com.quizgenix.service.ImageService; // ✅ Cloudinary Service
 import com.quizgenix.service.UserService;
@@ -267,21 +268,15 @@ public class SettingsController {
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired
-    private QuizRepository quizRepository;
-
-    @Autowired
-    private QuestionRepository questionRepository;
-
-    @Autowired
-    private PaymentRepository paymentRepository;
-
     @Autowired
     private EmailService emailService;
 
     @Autowired
     private ImageService imageService; // ✅ Injected for Cloudinary operations
 
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
     // ==========================================
     // 1. UPDATE PROFILE (Uses Cloudinary Upload)
     // ==========================================
@@ -380,60 +375,44 @@ public class SettingsController {
         try {
             User user = userService.findByEmail(principal.getName());
 
-            // ------------------------------------------------------------
-            // STEP A: DELETE DATA (Quizzes -> Questions)
-            // ------------------------------------------------------------
-            List<Quiz> userQuizzes = quizRepository.findByUser(user);
-
-            if (!userQuizzes.isEmpty()) {
-                List<Question> userQuestions = questionRepository.findByQuizIn(userQuizzes);
-
-                if (!userQuestions.isEmpty()) {
-                    questionRepository.deleteAll(userQuestions);
-                }
-                quizRepository.deleteAll(userQuizzes);
-            }
-
-            // ------------------------------------------------------------
-            // STEP B: UNLINK PAYMENTS (Fix for SQL Constraint Error)
-            // ------------------------------------------------------------
-            List<Payment> userPayments = paymentRepository.findByUser(user);
-
-            if (!userPayments.isEmpty()) {
-                for (Payment payment : userPayments) {
-                    payment.setArchivedUserName(user.getFirstName() + " " + user.getLastName());
-                    payment.setArchivedUserEmail(user.getEmail());
-                    payment.setUser(null); // Unlink user so we can delete the user record
-                    paymentRepository.save(payment);
-                }
-            }
-
-            // ------------------------------------------------------------
-            // STEP C: DELETE PROFILE IMAGE FROM CLOUD (Clean up)
-            // ------------------------------------------------------------
-            String profileImage = user.getProfileImage();
-
-            // Only attempt delete if it's not the default placeholder
-            if (profileImage != null && !profileImage.equals("profile.png")) {
-                imageService.deleteImage(profileImage);
-            }
-
-            // ------------------------------------------------------------
-            // STEP D: DELETE USER
-            // ------------------------------------------------------------
-            userRepository.delete(user);
+            // Large accounts are deleted in the background; the sign-in page shows the progress
+            DeletionJob job = accountDeletionService.delete(user);
 
             // Logout
             session.invalidate();
             request.logout();
 
+            if (job != null) {
+                return "redirect:/login?deleting=" + job.getId();
+            }
             redirectAttributes.addFlashAttribute("success", "Account deleted successfully.");
             return "redirect:/login?deleted";
 
+        } catch (TaskRejectedException e) {
+            redirectAttributes.addFlashAttribute("error", "Account deletion is busy. Please try again in a few minutes.");
+            return "redirect:/settings";
         } catch (Exception e) {
             e.printStackTrace();
             redirectAttributes.addFlashAttribute("error", "Error deleting account: " + e.getMessage());
             return "redirect:/settings";
         }
     }
-}
\ No newline at end of file
+
+    // ==========================================
+    // 4. DELETION PROGRESS (polled by the sign-in page, after logout)
+    // ==========================================
+    @GetMapping("/account-deletion/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getDeletionStatus(@PathVariable String jobId) {
+        DeletionJob job = accountDeletionService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // The job id is the only key: it is random and reveals nothing but the progress
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", job.getStatus().name().toLowerCase());
+        data.put("percent", job.getPercent());
+        data.put("error", job.getError());
+        return ResponseEntity.ok(data);
+    }
+}
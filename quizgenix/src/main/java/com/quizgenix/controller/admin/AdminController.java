@@ -29,8 +29,11 @@ import com.quizgenix.repository.PaymentRepository;
 import com.quizgenix.repository.QuizRepository;
 import com.quizgenix.service.ContactService;
 import com.quizgenix.service.InvoiceService;
+import com.quizgenix.service.LeaderboardService;
 import com.quizgenix.service.PaymentService;
 import com.quizgenix.service.ReportService;
+import com.quizgenix.service.UserStatsService;
+import com.quizgenix.service.XpService;
 import com.quizgenix.service.admin.AdminUserService;
 import com.quizgenix.service.admin.DashboardService;
 import com.quizgenix.service.admin.DashboardService.ChartDataDTO;
@@ -55,6 +58,12 @@ public class AdminController {
     private ReportService reportService;
     @Autowired
     private ContactService contactService;
+    @Autowired
+    private XpService xpService;
+    @Autowired
+    private UserStatsService userStatsService;
+    @Autowired
+    private LeaderboardService leaderboardService;
 
     // --- DASHBOARD ---
     @GetMapping("/dashboard")
@@ -96,6 +105,24 @@ public class AdminController {
         return "redirect:/admin/users";
     }
 
+    // --- XP: rebuild totals from the ledger ---
+    @PostMapping("/users/recompute-xp")
+    public String recomputeXp(RedirectAttributes redirectAttributes) {
+        int corrected = xpService.recomputeTotals();
+        leaderboardService.reload();
+        redirectAttributes.addFlashAttribute("successMessage",
+                "XP recomputed from the ledger: " + corrected + " user totals corrected.");
+        return "redirect:/admin/users";
+    }
+
+    // --- DASHBOARD STATS: rebuild user_stats from the quiz table ---
+    @PostMapping("/users/rebuild-stats")
+    public String rebuildStats(RedirectAttributes redirectAttributes) {
+        int users = userStatsService.rebuild();
+        redirectAttributes.addFlashAttribute("successMessage", "Dashboard stats rebuilt for " + users + " users.");
+        return "redirect:/admin/users";
+    }
+
     // --- PAYMENTS ---
     @GetMapping("/payments")
     public String listPayments(Model model) {
@@ -146,6 +173,13 @@ public class AdminController {
         return "admin/reports";
     }
 
+    // --- AI TELEMETRY (data from /admin/api/ai/telemetry) ---
+    @GetMapping("/ai-telemetry")
+    public String aiTelemetry(Model model) {
+        model.addAttribute("pageTitle", "AI Telemetry");
+        return "admin/ai-telemetry";
+    }
+
     @GetMapping("/reports/export/csv")
     public ResponseEntity<byte[]> exportCsv(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -0,0 +1,129 @@
+package com.quizgenix.controller.admin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.quizgenix.service.AiCallGuard;
+import com.quizgenix.service.AiTelemetry;
+import com.quizgenix.service.DiskResponseCache;
+import com.quizgenix.service.GenerationCoalescer;
+import com.quizgenix.service.GenerationRateLimiter;
+import com.quizgenix.service.LlmRouter;
+import com.quizgenix.service.QuestionSetCache;
+import com.quizgenix.service.WarmPoolService;
+
+@RestController
+@RequestMapping("/admin/api/ai")
+public class AiMetricsRestController {
+
+    @Autowired
+    private PoolingHttpClientConnectionManager aiConnectionManager;
+
+    @Autowired
+    private QuestionSetCache questionSetCache;
+
+    @Autowired
+    private GenerationCoalescer generationCoalescer;
+
+    @Autowired
+    private WarmPoolService warmPoolService;
+
+    @Autowired
+    private AiCallGuard aiCallGuard;
+
+    @Autowired
+    private GenerationRateLimiter generationRateLimiter;
+
+    @Autowired
+    private LlmRouter llmRouter;
+
+    @Autowired
+    private DiskResponseCache diskResponseCache;
+
+    @Autowired
+    private AiTelemetry aiTelemetry;
+
+    // Connection pool usage of the AI HTTP client (size it for peak generation load)
+    @GetMapping("/pool")
+    public Map<String, Object> getPoolStats() {
+        PoolStats total = aiConnectionManager.getTotalStats();
+
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (HttpRoute route : aiConnectionManager.getRoutes()) {
+            Map<String, Object> routeData = toMap(aiConnectionManager.getStats(route));
+            routeData.put("route", route.getTargetHost().toURI());
+            routes.add(routeData);
+        }
+
+        Map<String, Object> response = toMap(total);
+        response.put("routes", routes);
+        return response;
+    }
+
+    // Question-set cache effectiveness (hits, misses, evictions)
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        return questionSetCache.getStats();
+    }
+
+    // Identical concurrent generations served by a single AI call
+    @GetMapping("/coalescing")
+    public Map<String, Object> getCoalescingStats() {
+        return generationCoalescer.getStats();
+    }
+
+    // Pre-generated sets per trending topic and refill activity
+    @GetMapping("/warm-pool")
+    public Map<String, Object> getWarmPoolStats() {
+        return warmPoolService.getStats();
+    }
+
+    // Adaptive concurrency limit and circuit breaker state
+    @GetMapping("/limiter")
+    public Map<String, Object> getLimiterStats() {
+        return aiCallGuard.getStats();
+    }
+
+    // Generations rejected by the per-user / global token buckets
+    @GetMapping("/rate-limit")
+    public Map<String, Object> getRateLimitStats() {
+        return generationRateLimiter.getStats();
+    }
+
+    // Per-provider latency / availability, hedges and failovers
+    @GetMapping("/providers")
+    public Map<String, Object> getProviderStats() {
+        return llmRouter.getStats();
+    }
+
+    // Persistent answer cache (entries, hits, checksum failures, compactions)
+    @GetMapping("/disk-cache")
+    public Map<String, Object> getDiskCacheStats() {
+        return diskResponseCache.getStats();
+    }
+
+    // Latency percentiles, tokens, cost and failure classes per model / difficulty
+    @GetMapping("/telemetry")
+    public Map<String, Object> getTelemetry() {
+        return aiTelemetry.getStats();
+    }
+
+    private Map<String, Object> toMap(PoolStats stats) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("leased", stats.getLeased());
+        data.put("pending", stats.getPending());
+        data.put("idle", stats.getAvailable());
+        data.put("max", stats.getMax());
+        return data;
+    }
+}
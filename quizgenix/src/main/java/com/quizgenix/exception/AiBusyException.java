@@ -0,0 +1,9 @@
+package com.quizgenix.exception;
+
+// Thrown when an AI call is refused locally (circuit open, concurrency limit reached)
+public class AiBusyException extends RuntimeException {
+
+    public AiBusyException(String message) {
+        super(message);
+    }
+}
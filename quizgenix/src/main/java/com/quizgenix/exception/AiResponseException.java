@@ -0,0 +1,20 @@
+package com.quizgenix.exception;
+
+// The provider answered, but the answer was unusable (see AiTelemetry failure classes)
+public class AiResponseException extends RuntimeException {
+
+    public enum Kind {
+        EMPTY_CHOICES, BAD_JSON, INVALID_STRUCTURE
+    }
+
+    private final Kind kind;
+
+    public AiResponseException(Kind kind, String message) {
+        super(message);
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,9 @@
+package com.quizgenix.exception;
+
+// Thrown when the submission queue stays full (exam-time burst) or the server is stopping
+public class SubmissionBusyException extends RuntimeException {
+
+    public SubmissionBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.quizgenix.model;
+
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+// One row per distinct question (text + options + answer), shared by every quiz that uses it.
+// Never updated after insert: quizzes only point at it.
+@Entity
+@Table(name = "canonical_questions")
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class CanonicalQuestion {
+
+    @Id
+    // Pooled ids: new content is inserted in batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "canonical_questions_seq")
+    @SequenceGenerator(name = "canonical_questions_seq", sequenceName = "canonical_questions_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    // SHA-256 (hex) of the normalized content, see CanonicalQuestionService
+    @Column(name = "content_hash", length = 64, nullable = false, unique = true)
+    private String contentHash;
+
+    @Column(length = 1000)
+    private String text;
+
+    private String correctAnswer; // e.g., "A"
+
+    @Column(columnDefinition = "TEXT")
+    private String explanation;
+
+    // One encoded column instead of a join-table row per option (A, B, C, D order is kept)
+    @Convert(converter = OptionListConverter.class)
+    @Column(name = "option_list", columnDefinition = "TEXT")
+    private List<String> options;
+}
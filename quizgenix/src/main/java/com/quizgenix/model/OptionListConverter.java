@@ -0,0 +1,57 @@
+package com.quizgenix.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a question's options in one column as length-prefixed strings:
+ * ["Paris", "Rome"] -> "5:Paris4:Rome". Any character (commas, quotes, colons,
+ * newlines) survives as-is, and decoding is a single pass without escaping.
+ */
+@Converter
+public class OptionListConverter implements AttributeConverter<List<String>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<String> options) {
+        if (options == null) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (String option : options) {
+            String value = option == null ? "" : option;
+            encoded.append(value.length()).append(':').append(value);
+        }
+        return encoded.toString();
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String encoded) {
+        List<String> options = new ArrayList<>(4);
+        if (encoded == null) {
+            return options;
+        }
+        int i = 0;
+        while (i < encoded.length()) {
+            int colon = encoded.indexOf(':', i);
+            if (colon < 0) {
+                throw new IllegalArgumentException("Corrupt option list at index " + i);
+            }
+            int length;
+            try {
+                length = Integer.parseInt(encoded, i, colon, 10);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Corrupt option list at index " + i, e);
+            }
+            int end = colon + 1 + length;
+            if (length < 0 || end > encoded.length()) {
+                throw new IllegalArgumentException("Corrupt option list at index " + i);
+            }
+            options.add(encoded.substring(colon + 1, end));
+            i = end;
+        }
+        return options;
+    }
+}
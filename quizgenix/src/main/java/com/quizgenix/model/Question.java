@@ -1,9 +1,8 @@
 package com.quizgenix.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +10,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -24,28 +25,59 @@ import lombok.NoArgsConstructor;
 public class Question {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled ids so a quiz's questions go out as one JDBC batch (see QuizService)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_seq")
+    @SequenceGenerator(name = "question_seq", sequenceName = "question_seq", allocationSize = 50)
     @EqualsAndHashCode.Include // 🟢 Only ID determines uniqueness
     private Long id;
 
-    @Column(length = 1000)
-    private String text;
+    // Shared content (text, options, answer key, explanation), stored once per distinct question
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "canonical_id")
+    private CanonicalQuestion canonical;
 
-    private String correctAnswer; // e.g., "A"
-    private String userAnswer; // e.g., "A programming language"
+    private Integer position; // Order within the quiz
 
-    @Column(columnDefinition = "TEXT")
-    private String explanation;
+    private String userAnswer; // e.g., "A programming language"
 
     @ManyToOne
     @JoinColumn(name = "quiz_id")
     private Quiz quiz;
 
-    @ElementCollection(fetch = FetchType.EAGER) // Ensure options are loaded
+    // AI output before it is linked to a canonical row (parsing, caches, warm pool)
+    @Transient
+    private String text;
+
+    @Transient
+    private String correctAnswer; // e.g., "A"
+
+    @Transient
+    private String explanation;
+
+    @Transient
     private List<String> options;
 
+    // Content getters read the canonical row once the question is linked
+    public String getText() {
+        return canonical != null ? canonical.getText() : text;
+    }
+
+    public String getCorrectAnswer() {
+        return canonical != null ? canonical.getCorrectAnswer() : correctAnswer;
+    }
+
+    public String getExplanation() {
+        return canonical != null ? canonical.getExplanation() : explanation;
+    }
+
+    public List<String> getOptions() {
+        return canonical != null ? canonical.getOptions() : options;
+    }
+
     // Helper to find the index of the correct answer (0=A, 1=B, etc.)
     public int getCorrectAnswerIndex() {
+        List<String> options = getOptions();
+        String correctAnswer = getCorrectAnswer();
         if (options == null || correctAnswer == null)
             return -1;
 
@@ -68,4 +100,15 @@ public class Question {
                 return -1;
         }
     }
-}
\ No newline at end of file
+
+    // Detached copy of the generated content (no id, quiz or user answer)
+    public Question copy() {
+        Question copy = new Question();
+        copy.setText(getText());
+        copy.setCorrectAnswer(getCorrectAnswer());
+        copy.setExplanation(getExplanation());
+        copy.setOptions(getOptions() != null ? new ArrayList<>(getOptions()) : null);
+        copy.setCanonical(canonical); // Shared and immutable: saves a lookup when reused
+        return copy;
+    }
+}
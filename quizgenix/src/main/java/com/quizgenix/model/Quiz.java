@@ -5,24 +5,43 @@ import java.util.List;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// Fetch plans, one SQL statement each (see QuizRepository): questions come with their
+// canonical content; the owner is only joined where it is rendered or updated
+@NamedEntityGraph(name = Quiz.WITH_QUESTIONS, attributeNodes = @NamedAttributeNode(value = "questions", subgraph = "content"),
+        subgraphs = @NamedSubgraph(name = "content", attributeNodes = @NamedAttributeNode("canonical")))
+@NamedEntityGraph(name = Quiz.WITH_USER_AND_QUESTIONS, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode(value = "questions", subgraph = "content") },
+        subgraphs = @NamedSubgraph(name = "content", attributeNodes = @NamedAttributeNode("canonical")))
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Quiz {
 
+    public static final String WITH_QUESTIONS = "Quiz.withQuestions";
+    public static final String WITH_USER_AND_QUESTIONS = "Quiz.withUserAndQuestions";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled ids (50 per round trip): IDENTITY would force one INSERT at a time and disable JDBC batching
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_seq")
+    @SequenceGenerator(name = "quiz_seq", sequenceName = "quiz_seq", allocationSize = 50)
     private Long id;
 
     private String topic;
@@ -30,11 +49,12 @@ public class Quiz {
     private int totalQuestions;
     private LocalDateTime createdAt;
     private int score; // Stores the percentage (0-100)
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // Ownership checks only need the id, which the proxy has
     @JoinColumn(name = "user_id")
     private User user;
 
     @OneToMany(mappedBy = "quiz", cascade = CascadeType.ALL)
+    @OrderBy("position ASC, id ASC") // Rows from before positions existed fall back to insert order
     private List<Question> questions;
 
     public int getCorrectAnswers() {
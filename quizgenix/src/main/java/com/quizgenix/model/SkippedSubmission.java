@@ -0,0 +1,31 @@
+package com.quizgenix.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A logged submission that SubmissionPipeline saved out of order (its log fsync failed), written in
+// the same transaction as the save: a replay of that log skips the sequence instead of saving it twice.
+// Cleared on the next startup, once the log has been replayed and emptied.
+@Entity
+@Table(name = "submission_log_skip", indexes = @Index(name = "idx_submission_log_skip", columnList = "log_id, log_sequence"))
+@Data
+@NoArgsConstructor
+public class SkippedSubmission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "log_id", length = 36, nullable = false)
+    private String logId;
+
+    @Column(name = "log_sequence", nullable = false)
+    private long sequence;
+}
@@ -0,0 +1,25 @@
+package com.quizgenix.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row per SubmissionLog (its id, kept in the log directory): sequence of the last logged
+// submission SubmissionPipeline committed from that log. Updated in the same transaction as the
+// submissions, so a replay after a crash skips exactly those.
+@Entity
+@Table(name = "submission_log_checkpoint")
+@Data
+@NoArgsConstructor
+public class SubmissionCheckpoint {
+
+    @Id
+    @Column(name = "log_id", length = 36)
+    private String logId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
@@ -61,7 +61,8 @@ public class User {
     private LocalDateTime tokenCreationDate; // New field for expiration
 
     // --- NEW FIELD: TOTAL XP ---
-    @Column(columnDefinition = "int default 0")
+    // Only changed by XpService (in-place increment + ledger row): entity saves never write it back
+    @Column(columnDefinition = "int default 0", updatable = false)
     private int totalXp = 0; // Stores the user's total experience points
 
     public int getLevel() {
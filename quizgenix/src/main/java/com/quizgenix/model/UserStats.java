@@ -0,0 +1,68 @@
+package com.quizgenix.model;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Dashboard numbers for one user, kept up to date by UserStatsService whenever one of
+// their quizzes is created or scored, so the dashboard reads one row instead of aggregating history
+@Entity
+@Table(name = "user_stats")
+@Data
+@NoArgsConstructor
+public class UserStats {
+
+    public static final int RECENT_QUIZZES = 5;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "quiz_count", nullable = false)
+    private int quizCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum; // Sum of quiz scores (percentages); unsubmitted quizzes count as 0
+
+    @Column(name = "month_key", nullable = false)
+    private int monthKey; // yyyyMM of month_count
+
+    @Column(name = "month_count", nullable = false)
+    private int monthCount;
+
+    @Column(name = "recent_quiz_ids", length = 255, nullable = false)
+    private String recentQuizIds = ""; // Newest first, comma-separated
+
+    @Column(name = "best_topic")
+    private String bestTopic; // Highest average score, see user_topic_stats
+
+    public static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    public int getAverageScore() {
+        return quizCount > 0 ? (int) Math.round((double) scoreSum / quizCount) : 0;
+    }
+
+    // Nothing created yet this month when the stored month is an older one
+    public int getQuizzesThisMonth() {
+        return monthKey == monthKey(YearMonth.now()) ? monthCount : 0;
+    }
+
+    public List<Long> getRecentQuizIdList() {
+        List<Long> ids = new ArrayList<>(RECENT_QUIZZES);
+        for (String id : recentQuizIds.split(",")) {
+            if (!id.isEmpty()) {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,43 @@
+package com.quizgenix.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Per-user, per-topic quiz count and score sum: picks UserStats.bestTopic without scanning quizzes.
+// Written by UserStatsService with plain SQL; the entity only defines the table.
+@Entity
+@Table(name = "user_topic_stats")
+@IdClass(UserTopicStats.Key.class)
+@Data
+@NoArgsConstructor
+public class UserTopicStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private String topic;
+
+    @Column(name = "quiz_count", nullable = false)
+    private int quizCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private String topic;
+    }
+}
@@ -0,0 +1,46 @@
+package com.quizgenix.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Append-only record of every XP change: users.total_xp is the running sum of these rows.
+// Written by XpService with plain SQL, never updated; the entity only defines the table.
+@Entity
+@Table(name = "xp_ledger", indexes = @Index(name = "idx_xp_ledger_user", columnList = "user_id"))
+@Data
+@NoArgsConstructor
+public class XpLedgerEntry {
+
+    public static final String QUIZ = "QUIZ";
+    public static final String OPENING_BALANCE = "OPENING_BALANCE"; // XP earned before the ledger existed
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain ids, no foreign keys: the audit trail outlives deleted quizzes.
+    // Null once the account is deleted (set by AccountDeletionService; see V4 migration)
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    @Column(nullable = false)
+    private int amount;
+
+    @Column(length = 32, nullable = false)
+    private String reason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
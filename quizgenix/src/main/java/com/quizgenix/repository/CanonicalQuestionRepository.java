@@ -0,0 +1,15 @@
+package com.quizgenix.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.quizgenix.model.CanonicalQuestion;
+
+public interface CanonicalQuestionRepository extends JpaRepository<CanonicalQuestion, Long> {
+    // One IN query resolves every question of a quiz
+    List<CanonicalQuestion> findByContentHashIn(Collection<String> contentHashes);
+
+    CanonicalQuestion findByContentHash(String contentHash);
+}
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -15,6 +16,12 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByUser(User user);
 
+    // Account deletion keeps the payment history: snapshot the owner and unlink, in one statement
+    @Modifying
+    @Query("UPDATE Payment p SET p.archivedUserName = :name, p.archivedUserEmail = :email, p.user = NULL "
+            + "WHERE p.user.id = :userId")
+    int archiveByUserId(@Param("userId") Long userId, @Param("name") String name, @Param("email") String email);
+
     // admin
 
     // 1. Total Revenue: Cast String amount to Double for summation
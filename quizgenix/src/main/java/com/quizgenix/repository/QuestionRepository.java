@@ -3,6 +3,9 @@ package com.quizgenix.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.quizgenix.model.Question;
 import com.quizgenix.model.Quiz;
@@ -10,4 +13,9 @@ import com.quizgenix.model.Quiz;
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     // This allows us to fetch all questions for a list of quizzes at once
     List<Question> findByQuizIn(List<Quiz> quizzes);
-}
\ No newline at end of file
+
+    // Account deletion: one statement per batch of quizzes (canonical content is shared and stays)
+    @Modifying
+    @Query("DELETE FROM Question q WHERE q.quiz.id IN :quizIds")
+    int deleteByQuizIds(@Param("quizIds") List<Long> quizIds);
+}
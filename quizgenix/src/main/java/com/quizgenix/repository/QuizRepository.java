@@ -1,11 +1,15 @@
 package com.quizgenix.repository;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -14,16 +18,24 @@ import com.quizgenix.model.User;
 
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
 
+    // Per-user queries are range scans on idx_quiz_user_created (user_id, created_at, score),
+    // index-only for counts and averages. Indexes live in db/migration (SchemaMigrations).
+    // Time windows are half-open, [from, to), with the bare column on the left so the index applies.
+
     // --- EXISTING METHODS (KEPT) ---
-    long countByUserAndCreatedAtAfter(User user, LocalDateTime date);
+    @Query("SELECT COUNT(q) FROM Quiz q WHERE q.user = :user AND q.createdAt >= :from AND q.createdAt < :to")
+    long countInWindow(@Param("user") User user, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
     long countByUser(User user);
 
     @Query("SELECT AVG(q.score) FROM Quiz q WHERE q.user = :user")
     Double findAverageScoreByUser(@Param("user") User user);
 
-    @Query("SELECT COUNT(q) FROM Quiz q WHERE q.user = :user AND MONTH(q.createdAt) = MONTH(CURRENT_DATE) AND YEAR(q.createdAt) = YEAR(CURRENT_DATE)")
-    int countQuizzesThisMonth(@Param("user") User user);
+    // Monthly quota: [first day of this month, first day of next month)
+    default long countQuizzesThisMonth(User user) {
+        YearMonth month = YearMonth.now();
+        return countInWindow(user, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
 
     List<Quiz> findTop5ByUserOrderByCreatedAtDesc(User user);
 
@@ -35,10 +47,35 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
     @Query("SELECT DISTINCT q.topic FROM Quiz q WHERE q.user = :user ORDER BY q.topic ASC")
     List<String> findDistinctTopicsByUser(@Param("user") User user);
 
-    // NEW: PAGINATION & DATE RANGE ---
-    Page<Quiz> findByUserAndCreatedAtBetween(User user, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    // NEW: PAGINATION & DATE RANGE --- [from, to)
+    @Query(value = "SELECT q FROM Quiz q WHERE q.user = :user AND q.createdAt >= :from AND q.createdAt < :to",
+            countQuery = "SELECT COUNT(q) FROM Quiz q WHERE q.user = :user AND q.createdAt >= :from AND q.createdAt < :to")
+    Page<Quiz> findInWindow(@Param("user") User user, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to, Pageable pageable);
+
+    // Most requested (topic, difficulty, count) combos since a date (warm pool refill);
+    // index-only range scan on idx_quiz_created_topic
+    @Query("SELECT LOWER(q.topic), q.difficulty, q.totalQuestions, COUNT(q) FROM Quiz q " +
+            "WHERE q.createdAt >= :since " +
+            "GROUP BY LOWER(q.topic), q.difficulty, q.totalQuestions ORDER BY COUNT(q) DESC")
+    List<Object[]> findTrendingTopics(@Param("since") LocalDateTime since, Pageable pageable);
+
+    // Quiz page, review, result: quiz + questions + canonical content in one statement
+    @EntityGraph(Quiz.WITH_QUESTIONS)
+    Optional<Quiz> findWithQuestionsById(Long id);
+
+    // PDF export and scoring also need the owner (name on the report, XP)
+    @EntityGraph(Quiz.WITH_USER_AND_QUESTIONS)
+    Optional<Quiz> findWithUserAndQuestionsById(Long id);
 
-    // This fetches all quizzes so we can delete them before deleting the user
     List<Quiz> findByUser(User user);
 
+    // Account deletion works through the user's quizzes in id order, one bounded batch at a time
+    @Query("SELECT q.id FROM Quiz q WHERE q.user.id = :userId ORDER BY q.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Quiz q WHERE q.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
 }
\ No newline at end of file
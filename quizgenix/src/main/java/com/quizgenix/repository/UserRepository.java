@@ -21,13 +21,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
         boolean existsByEmail(String email);
 
-        @Query("SELECT COUNT(u) FROM User u WHERE u.totalXp > :xp")
-        long countUsersWithMoreXp(@Param("xp") int totalXp);
-
-        List<User> findTop5ByOrderByTotalXpDesc();
-
-        List<User> findTop20ByOrderByTotalXpDesc();
-
         // Dashboard Counts
         long countByRoleNot(String role);
 
@@ -0,0 +1,8 @@
+package com.quizgenix.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.quizgenix.model.UserStats;
+
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+}
@@ -0,0 +1,265 @@
+package com.quizgenix.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.quizgenix.model.User;
+import com.quizgenix.repository.PaymentRepository;
+import com.quizgenix.repository.QuestionRepository;
+import com.quizgenix.repository.QuizRepository;
+
+/**
+ * Deletes an account with set-based statements: the user's questions and quizzes go
+ * in id-ordered batches (one DELETE each per batch, each batch its own short
+ * transaction), payments are archived and unlinked with one UPDATE, and the stats
+ * and user rows go last in one transaction. XP ledger rows are kept for the audit
+ * trail, with their user_id cleared.
+ *
+ * Small accounts are deleted inside the request; accounts with more than
+ * quiz.account-deletion.async-threshold quizzes are deleted in the background and
+ * report progress through a DeletionJob. The account is disabled before the first
+ * batch, so it cannot be signed into while half deleted.
+ */
+@Service
+public class AccountDeletionService {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor accountDeletionExecutor;
+
+    @Value("${quiz.account-deletion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${quiz.account-deletion.async-threshold:1000}")
+    private long asyncThreshold;
+
+    @Value("${quiz.account-deletion.job-retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, DeletionJob> jobs = new ConcurrentHashMap<>();
+
+    // Deletes a small account before returning (null); queues a large one and returns its job
+    public DeletionJob delete(User user) {
+        long quizzes = quizRepository.countByUser(user);
+        if (quizzes > asyncThreshold) {
+            return start(user, quizzes);
+        }
+        deleteNow(user, quizzes);
+        return null;
+    }
+
+    // Deletes the account before returning; failures are rethrown to the caller
+    public void deleteNow(User user) {
+        deleteNow(user, quizRepository.countByUser(user));
+    }
+
+    // The job is only this call's progress record: nobody polls it, so it is not kept in jobs
+    private void deleteNow(User user, long quizzes) {
+        DeletionJob job = newJob(user, quizzes);
+        disable(job);
+        run(job, user);
+        if (job.getStatus() == Status.FAILED) {
+            throw new IllegalStateException(job.getError());
+        }
+    }
+
+    // Queues the deletion and returns the job handle; TaskRejectedException when the queue is full
+    public DeletionJob start(User user) {
+        return start(user, quizRepository.countByUser(user));
+    }
+
+    private DeletionJob start(User user, long quizzes) {
+        purgeFinishedJobs();
+        DeletionJob job = newJob(user, quizzes);
+        jobs.put(job.getId(), job);
+        disable(job); // The job re-enables the account if it fails
+        try {
+            accountDeletionExecutor.execute(() -> run(job, user));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            jdbcTemplate.update("UPDATE users SET enabled = 1 WHERE id = ?", job.getUserId());
+            throw e;
+        }
+        return job;
+    }
+
+    public DeletionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private DeletionJob newJob(User user, long quizzes) {
+        return new DeletionJob(UUID.randomUUID().toString(), user.getId(), quizzes);
+    }
+
+    private void disable(DeletionJob job) {
+        jdbcTemplate.update("UPDATE users SET enabled = 0 WHERE id = ?", job.getUserId());
+    }
+
+    private void run(DeletionJob job, User user) {
+        job.status = Status.RUNNING;
+        long start = System.currentTimeMillis();
+        Long userId = user.getId();
+        try {
+            // This user's submissions acknowledged before they signed out are saved first (XP, stats);
+            // other users' submissions queued behind them are not waited for
+            submissionPipeline.flush(userId, 10_000);
+
+            List<Long> ids;
+            while (!(ids = quizRepository.findIdsByUserId(userId, PageRequest.of(0, batchSize))).isEmpty()) {
+                List<Long> batch = ids;
+                transactionTemplate.executeWithoutResult(status -> {
+                    questionRepository.deleteByQuizIds(batch);
+                    quizRepository.deleteByIds(batch);
+                });
+                batch.forEach(answerKeyCache::remove);
+                job.deletedQuizzes += batch.size();
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentRepository.archiveByUserId(userId, user.getFirstName() + " " + user.getLastName(),
+                        user.getEmail());
+                // The ledger is the XP audit trail: its rows stay, no longer tied to the person
+                jdbcTemplate.update("UPDATE xp_ledger SET user_id = NULL WHERE user_id = ?", userId);
+                userStatsService.forget(userId);
+                jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+            });
+            leaderboardService.userRemoved(userId);
+
+            // Remote call, after the commit: a failure here only leaves an orphaned image
+            String profileImage = user.getProfileImage();
+            if (profileImage != null && !profileImage.equals("profile.png")) {
+                try {
+                    imageService.deleteImage(profileImage);
+                } catch (Exception e) {
+                    System.out.println(">>> Profile image of deleted user " + userId + " not removed: " + e.getMessage());
+                }
+            }
+
+            finish(job, Status.DONE, null);
+            System.out.println(">>> Account " + userId + " deleted (" + job.getDeletedQuizzes() + " quizzes) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Quizzes deleted so far stay deleted; recount the stats and let the user sign in and retry
+            try {
+                userStatsService.quizRemoved(userId);
+                jdbcTemplate.update("UPDATE users SET enabled = 1 WHERE id = ?", userId);
+            } catch (Exception restoreFailed) {
+                restoreFailed.printStackTrace();
+            }
+            finish(job, Status.FAILED, "Account deletion failed. Please sign in and try again.");
+        }
+    }
+
+    private void finish(DeletionJob job, Status status, String error) {
+        job.error = error;
+        job.finishedAt = LocalDateTime.now();
+        job.status = status;
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    // Progress of one deletion, polled by the sign-in page after the user is logged out
+    public static class DeletionJob {
+        private final String id;
+        private final Long userId;
+        private final long totalQuizzes;
+        private volatile Status status = Status.QUEUED;
+        private volatile long deletedQuizzes;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        DeletionJob(String id, Long userId, long totalQuizzes) {
+            this.id = id;
+            this.userId = userId;
+            this.totalQuizzes = totalQuizzes;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public long getTotalQuizzes() {
+            return totalQuizzes;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getDeletedQuizzes() {
+            return deletedQuizzes;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        // 0-100; quizzes created while the job ran can push the count past the total
+        public int getPercent() {
+            if (status == Status.DONE) {
+                return 100;
+            }
+            return totalQuizzes == 0 ? 0 : (int) Math.min(99, deletedQuizzes * 100 / totalQuizzes);
+        }
+    }
+}
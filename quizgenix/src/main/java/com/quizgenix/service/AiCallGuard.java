@@ -0,0 +1,235 @@
+package com.quizgenix.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.quizgenix.exception.AiBusyException;
+
+/**
+ * Adaptive concurrency limit + circuit breaker around the chat-completions call.
+ *
+ * Limit (AIMD): every fast success adds ~1 slot per "round" of calls; a 429,
+ * timeout, network error, 5xx or slow response cuts the limit by the backoff ratio.
+ * Callers above the limit queue with a deadline, or fail fast once the queue is full.
+ * Other errors (bad JSON, a 4xx) say nothing about provider health and change neither.
+ *
+ * Breaker: after N consecutive failures it opens and rejects immediately for
+ * the cool-down, then lets a single probe through (half-open) to decide.
+ */
+@Service
+public class AiCallGuard {
+
+    public enum BreakerState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${ai.limiter.initial-limit:4}")
+    private double initialLimit;
+
+    @Value("${ai.limiter.min-limit:1}")
+    private double minLimit;
+
+    @Value("${ai.limiter.max-limit:20}")
+    private double maxLimit;
+
+    @Value("${ai.limiter.backoff-ratio:0.7}")
+    private double backoffRatio;
+
+    // Responses slower than this count as congestion
+    @Value("${ai.limiter.slow-call-ms:30000}")
+    private long slowCallMs;
+
+    @Value("${ai.limiter.queue-timeout-ms:10000}")
+    private long queueTimeoutMs;
+
+    @Value("${ai.limiter.max-queue:20}")
+    private int maxQueue;
+
+    @Value("${ai.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${ai.breaker.open-ms:30000}")
+    private long openMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit = -1;
+    private int inFlight;
+    private int waiting;
+    private int consecutiveFailures;
+    private BreakerState state = BreakerState.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final AtomicLong rejectedOpen = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedTimeout = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private volatile long lastLatencyMs;
+
+    public <T> T execute(Supplier<T> call) {
+        boolean probe = acquire();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            release(probe, millisSince(start), Outcome.SUCCESS);
+            return result;
+        } catch (RuntimeException e) {
+            release(probe, millisSince(start), outcomeOf(e));
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        lock.lock();
+        try {
+            data.put("limit", Math.round(currentLimit() * 100) / 100.0);
+            data.put("inFlight", inFlight);
+            data.put("waiting", waiting);
+            data.put("breakerState", state.name());
+            data.put("consecutiveFailures", consecutiveFailures);
+        } finally {
+            lock.unlock();
+        }
+        data.put("lastLatencyMs", lastLatencyMs);
+        data.put("rateLimited", rateLimited.get());
+        data.put("rejectedCircuitOpen", rejectedOpen.get());
+        data.put("rejectedQueueFull", rejectedQueueFull.get());
+        data.put("rejectedQueueTimeout", rejectedTimeout.get());
+        return data;
+    }
+
+    private enum Outcome {
+        SUCCESS, RATE_LIMITED, FAILURE, NEUTRAL
+    }
+
+    private static Outcome outcomeOf(RuntimeException e) {
+        switch (AiTelemetry.classify(e)) {
+            case RATE_LIMITED:
+                return Outcome.RATE_LIMITED;
+            case TIMEOUT:
+            case SERVER_ERROR:
+            case NETWORK:
+                return Outcome.FAILURE;
+            default:
+                return Outcome.NEUTRAL; // The provider answered (or was never reached)
+        }
+    }
+
+    // Returns true if this call is the half-open probe
+    private boolean acquire() {
+        lock.lock();
+        try {
+            if (state == BreakerState.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openMs) {
+                    rejectedOpen.incrementAndGet();
+                    throw new AiBusyException("⚠️ AI Service is temporarily unavailable. Please try again shortly.");
+                }
+                state = BreakerState.HALF_OPEN;
+            }
+            if (state == BreakerState.HALF_OPEN) {
+                if (probeInFlight) {
+                    rejectedOpen.incrementAndGet();
+                    throw new AiBusyException("⚠️ AI Service is temporarily unavailable. Please try again shortly.");
+                }
+                probeInFlight = true;
+                inFlight++;
+                return true;
+            }
+
+            if (inFlight >= (int) currentLimit()) {
+                if (waiting >= maxQueue) {
+                    rejectedQueueFull.incrementAndGet();
+                    throw new AiBusyException("⚠️ AI Service is busy. Please try again.");
+                }
+                waiting++;
+                try {
+                    long remainingNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+                    while (inFlight >= (int) currentLimit()) {
+                        if (remainingNanos <= 0) {
+                            rejectedTimeout.incrementAndGet();
+                            throw new AiBusyException("⚠️ AI Service is busy. Please try again.");
+                        }
+                        remainingNanos = slotFreed.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AiBusyException("⚠️ AI Service is busy. Please try again.");
+                } finally {
+                    waiting--;
+                }
+            }
+            inFlight++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean probe, long latencyMs, Outcome outcome) {
+        lastLatencyMs = latencyMs;
+        lock.lock();
+        try {
+            inFlight--;
+            if (probe) {
+                probeInFlight = false;
+            }
+
+            if (outcome == Outcome.NEUTRAL) {
+                // Limit and breaker unchanged; a probe's slot goes to the next caller
+                slotFreed.signalAll();
+                return;
+            }
+
+            boolean healthy = outcome == Outcome.SUCCESS;
+            if (outcome == Outcome.RATE_LIMITED) {
+                rateLimited.incrementAndGet();
+            }
+
+            // AIMD on the concurrency limit
+            double current = currentLimit();
+            if (healthy && latencyMs <= slowCallMs) {
+                limit = Math.min(maxLimit, current + 1.0 / current);
+            } else {
+                limit = Math.max(minLimit, current * backoffRatio);
+            }
+
+            // Circuit breaker
+            if (healthy) {
+                consecutiveFailures = 0;
+                state = BreakerState.CLOSED;
+            } else {
+                consecutiveFailures++;
+                if (probe || consecutiveFailures >= failureThreshold) {
+                    state = BreakerState.OPEN;
+                    openedAt = System.currentTimeMillis();
+                }
+            }
+
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double currentLimit() {
+        if (limit < 0) {
+            limit = initialLimit;
+        }
+        return limit;
+    }
+
+    private long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,220 @@
+package com.quizgenix.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quizgenix.exception.AiResponseException;
+import com.quizgenix.exception.AiResponseException.Kind;
+import com.quizgenix.model.Question;
+
+/**
+ * Decodes chat-completion responses with Jackson's streaming parser.
+ *
+ * The response bytes are walked token by token (no Map tree, no casts).
+ * choices[0].message.content is parsed in place from the parser's own char
+ * buffer, starting at the first "[{" so markdown fences or prose around the
+ * array are skipped without regex or extra String copies. The "usage" block
+ * is picked up on the same pass for token accounting (see AiTelemetry).
+ */
+@Component
+public class AiResponseDecoder {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public record Decoded(List<Question> questions, long promptTokens, long completionTokens) {
+    }
+
+    public record Chunk(String content, long promptTokens, long completionTokens) {
+    }
+
+    // Non-streaming response body -> questions + token usage
+    public Decoded decodeQuestions(InputStream body) throws IOException {
+        List<Question> questions = null;
+        long[] usage = new long[2];
+        boolean sawChoices = false;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new AiResponseException(Kind.INVALID_STRUCTURE, "AI returned an invalid response structure.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    sawChoices = true;
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        questions = readMessage(parser);
+                        skipRestOfArray(parser);
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    readUsage(parser, usage);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new AiResponseException(Kind.BAD_JSON, "AI returned malformed JSON: " + e.getOriginalMessage());
+        }
+
+        if (!sawChoices) {
+            throw new AiResponseException(Kind.INVALID_STRUCTURE, "AI returned an invalid response structure.");
+        }
+        if (questions == null) {
+            throw new AiResponseException(Kind.EMPTY_CHOICES, "AI returned no choices.");
+        }
+        return new Decoded(questions, usage[0], usage[1]);
+    }
+
+    // One SSE "data:" payload -> choices[0].delta.content ("" if absent) and usage, if this
+    // chunk carries it (top-level "usage" for OpenAI-style servers, "x_groq.usage" for Groq)
+    public Chunk decodeChunk(String data) throws IOException {
+        String content = "";
+        long[] usage = new long[2];
+        try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new Chunk(content, 0, 0);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        content = readDelta(parser);
+                        skipRestOfArray(parser);
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    readUsage(parser, usage);
+                } else if ("x_groq".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String inner = parser.currentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT && "usage".equals(inner)) {
+                            readUsage(parser, usage);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Chunk(content, usage[0], usage[1]);
+    }
+
+    // Inside choices[0]: message.content -> questions, everything else skipped whole
+    private List<Question> readMessage(JsonParser parser) throws IOException {
+        List<Question> questions = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String inner = parser.currentName();
+                    if (parser.nextToken() == JsonToken.VALUE_STRING && "content".equals(inner)) {
+                        questions = parseQuestionArray(parser.getTextCharacters(), parser.getTextOffset(),
+                                parser.getTextLength());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (questions == null) {
+            throw new AiResponseException(Kind.INVALID_STRUCTURE, "AI returned an invalid response structure.");
+        }
+        return questions;
+    }
+
+    // Inside choices[0] of a stream chunk: delta.content
+    private String readDelta(JsonParser parser) throws IOException {
+        String content = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("delta".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String inner = parser.currentName();
+                    if (parser.nextToken() == JsonToken.VALUE_STRING && "content".equals(inner)) {
+                        content = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    // usage -> [prompt_tokens, completion_tokens]
+    private void readUsage(JsonParser parser, long[] usage) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NUMBER_INT && "prompt_tokens".equals(field)) {
+                usage[0] = parser.getLongValue();
+            } else if (value == JsonToken.VALUE_NUMBER_INT && "completion_tokens".equals(field)) {
+                usage[1] = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // Only choices[0] is used; any further choices (n > 1) are skipped
+    private void skipRestOfArray(JsonParser parser) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+
+    private List<Question> parseQuestionArray(char[] text, int offset, int length) throws IOException {
+        int start = findArrayStart(text, offset, offset + length);
+        if (start < 0) {
+            throw new AiResponseException(Kind.BAD_JSON, "AI response did not contain a question list.");
+        }
+
+        List<Question> questions = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(text, start, offset + length - start)) {
+            parser.nextToken(); // '['
+            // Stops at the closing ']': a trailing fence or comment is never read
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                questions.add(objectMapper.readValue(parser, Question.class));
+            }
+        } catch (JsonProcessingException e) {
+            // Bad model output, not a transport problem: keep it out of the I/O error path
+            throw new AiResponseException(Kind.BAD_JSON, "AI returned malformed JSON: " + e.getOriginalMessage());
+        }
+        return questions;
+    }
+
+    // Index of a '[' whose next non-blank char is '{' (so "[10 questions]" in prose is ignored)
+    private int findArrayStart(char[] text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text[i] != '[') {
+                continue;
+            }
+            int j = i + 1;
+            while (j < to && Character.isWhitespace(text[j])) {
+                j++;
+            }
+            if (j < to && text[j] == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
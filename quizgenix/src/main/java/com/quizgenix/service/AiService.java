@@ -1,92 +1,417 @@
 package com.quizgenix.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects; // Required
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quizgenix.exception.AiBusyException;
+import com.quizgenix.exception.AiResponseException;
 import com.quizgenix.model.Question;
 
 @Service
 // @SuppressWarnings("null") // Suppresses remaining IDE-specific null warnings
 public class AiService {
 
-    @Value("${ai.api.key}")
-    private String apiKey;
+    // Shared pooled client (see AiHttpClientConfig) and Spring's shared mapper
+    @Autowired
+    private RestTemplate aiRestTemplate;
 
-    @Value("${ai.api.url}")
-    private String apiUrl;
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    @Value("${ai.api.model}")
-    private String modelId;
+    @Autowired
+    private AiCallGuard aiCallGuard;
 
-    @SuppressWarnings("unchecked")
-    public List<Question> generateQuestions(String topic, String difficulty, int count) {
-        RestTemplate restTemplate = new RestTemplate();
+    // Picks the provider (Groq, fallbacks...), hedges slow calls and fails over on 429/5xx
+    @Autowired
+    private LlmRouter llmRouter;
 
-        String prompt = String.format(
-                "Generate %d multiple-choice questions on '%s' (%s level). " +
-                        "Return JSON array ONLY. Do not include markdown formatting like ```json. " +
-                        "Format: [{\"text\": \"...\", \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correctAnswer\": \"A\", \"explanation\": \"...\"}]",
-                count, topic, difficulty);
+    @Autowired
+    private AiResponseDecoder responseDecoder;
 
-        // FIX 1: Use Generic Type <String, Object> to fix "Raw Type" warning
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", modelId);
-        requestBody.put("messages", List.of(Map.of("role", "user", "content", prompt)));
-        requestBody.put("temperature", 0.7);
+    @Autowired
+    private DiskResponseCache diskResponseCache;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        // FIX 2: Objects.requireNonNull ensures apiKey is not null
-        headers.set("Authorization", "Bearer " + Objects.requireNonNull(apiKey, "API Key must not be null"));
+    // Latency, tokens, cost and failure classes per model / difficulty
+    @Autowired
+    private AiTelemetry aiTelemetry;
+
+    // Large counts are split into parallel chunks on this pool
+    @Autowired
+    private ThreadPoolTaskExecutor aiChunkExecutor;
+
+    @Value("${ai.chunk.threshold:15}")
+    private int chunkThreshold;
+
+    @Value("${ai.chunk.size:10}")
+    private int chunkSize;
+
+    @Value("${ai.chunk.max-top-ups:2}")
+    private int maxTopUps;
+
+    public List<Question> generateQuestions(String topic, String difficulty, int count) {
+        Map<String, Integer> answeredBy = new ConcurrentHashMap<>();
+        List<Question> questions;
+        if (count <= chunkThreshold) {
+            questions = requestQuestions(topic, difficulty, count, 1, 1, answeredBy);
+        } else {
+            Consumer<Question> ignore = q -> {
+            };
+            questions = fanOut(count,
+                    (size, part, parts, sink) -> requestQuestions(topic, difficulty, size, part, parts, answeredBy)
+                            .forEach(sink),
+                    ignore);
+        }
+        // Every call answered, but with an empty list: never hand out a quiz without questions
+        if (questions.isEmpty()) {
+            throw new AiResponseException(AiResponseException.Kind.EMPTY_CHOICES,
+                    "Error generating quiz: AI returned no questions.");
+        }
+        return remember(topic, difficulty, count, questions, answeredBy);
+    }
+
+    // =========================================================
+    // STREAMING MODE (stream=true, one callback per finished question)
+    // =========================================================
+    public List<Question> streamQuestions(String topic, String difficulty, int count,
+            Consumer<Question> onQuestion) {
+        Map<String, Integer> answeredBy = new ConcurrentHashMap<>();
+        if (count <= chunkThreshold) {
+            return remember(topic, difficulty, count,
+                    streamChunk(topic, difficulty, count, 1, 1, onQuestion, answeredBy), answeredBy);
+        }
+        return remember(topic, difficulty, count, fanOut(count,
+                (size, part, parts, sink) -> streamChunk(topic, difficulty, size, part, parts, sink, answeredBy),
+                onQuestion), answeredBy);
+    }
+
+    // =========================================================
+    // DISK CACHE (complete answers survive restarts; no network call on a hit)
+    // =========================================================
+    // Entries are keyed by the model that wrote them, so any configured provider's answer counts
+    public List<Question> cachedQuestions(String topic, String difficulty, int count) {
+        for (String model : llmRouter.getModels()) {
+            byte[] json;
+            try {
+                json = diskResponseCache.get(DiskResponseCache.fingerprint(topic, difficulty, count, model));
+            } catch (RuntimeException e) {
+                System.out.println(">>> AI disk cache read failed: " + e.getMessage());
+                return null; // A cache problem only costs an AI call
+            }
+            if (json == null) {
+                continue;
+            }
+            try {
+                List<Question> questions = objectMapper.readValue(json, new TypeReference<List<Question>>() {
+                });
+                if (questions.size() >= count) {
+                    return questions;
+                }
+            } catch (IOException e) {
+                // Written by an older format: just generate again
+            }
+        }
+        return null;
+    }
 
+    // Stored under the model that wrote most of the set (chunks may come from different providers)
+    private List<Question> remember(String topic, String difficulty, int count, List<Question> questions,
+            Map<String, Integer> answeredBy) {
+        if (questions.size() < count || answeredBy.isEmpty()) {
+            return questions; // Only complete sets are worth replaying
+        }
+        String model = answeredBy.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+        List<Map<String, Object>> raw = new ArrayList<>(questions.size());
+        for (Question q : questions) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("text", q.getText());
+            item.put("options", q.getOptions());
+            item.put("correctAnswer", q.getCorrectAnswer());
+            item.put("explanation", q.getExplanation());
+            raw.add(item);
+        }
         try {
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            diskResponseCache.put(DiskResponseCache.fingerprint(topic, difficulty, count, model),
+                    objectMapper.writeValueAsBytes(raw));
+        } catch (IOException | RuntimeException e) {
+            // The questions are already generated: a cache problem must not fail the quiz
+            System.out.println(">>> AI disk cache not updated: " + e.getMessage());
+        }
+        return questions;
+    }
 
-            // FIX 3: Objects.requireNonNull ensures URL and Method are not null
-            ResponseEntity<Map<String, Object>> responseEntity = restTemplate.exchange(
-                    Objects.requireNonNull(apiUrl, "API URL is null"),
-                    Objects.requireNonNull(HttpMethod.POST, "HTTP Method is null"),
-                    entity,
-                    new ParameterizedTypeReference<Map<String, Object>>() {
-                    });
-
-            // ... (Rest of logic remains the same) ...
-
-            Map<String, Object> response = responseEntity.getBody();
-            if (response == null || !response.containsKey("choices")) {
-                throw new RuntimeException("AI returned an invalid response structure.");
+    // =========================================================
+    // FAN-OUT: parallel chunks, merged and de-duplicated, topped up if short
+    // =========================================================
+    private List<Question> fanOut(int count, ChunkCall call, Consumer<Question> onQuestion) {
+        ChunkMerger merger = new ChunkMerger(count, onQuestion);
+        int parts = (count + chunkSize - 1) / chunkSize;
+        RuntimeException lastError = null;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int part = 1; part <= parts; part++) {
+            int size = Math.min(chunkSize, count - (part - 1) * chunkSize);
+            int partNo = part;
+            futures.add(CompletableFuture.runAsync(() -> call.run(size, partNo, parts, merger::offer),
+                    aiChunkExecutor));
+        }
+
+        // Wall-clock time is set by the slowest chunk, not the total token count
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                lastError = e.getCause() instanceof RuntimeException cause ? cause : e;
             }
+        }
 
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-            String jsonString = (String) message.get("content");
+        // Duplicates across chunks (or a failed chunk) leave us short: ask for the gap
+        for (int round = 1; round <= maxTopUps && merger.missing() > 0; round++) {
+            try {
+                call.run(merger.missing() + 2, parts + round, parts + round, merger::offer);
+            } catch (RuntimeException e) {
+                lastError = e;
+            }
+        }
+
+        List<Question> merged = merger.result();
+        if (merged.isEmpty() && lastError != null) {
+            throw lastError;
+        }
+        return merged;
+    }
 
-            jsonString = jsonString.replaceAll("```json", "").replaceAll("```", "").trim();
+    // Questions from one AI call and the model of the provider that answered it
+    private record Answer(List<Question> questions, String model) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkCall {
+        void run(int size, int part, int parts, Consumer<Question> sink);
+    }
 
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(jsonString, new TypeReference<List<Question>>() {
-            });
+    // Keeps the first occurrence of each question text, up to the requested count
+    private static class ChunkMerger {
+        private final int target;
+        private final Consumer<Question> downstream;
+        private final Set<String> seenTexts = new HashSet<>();
+        private final List<Question> merged = new ArrayList<>();
+
+        ChunkMerger(int target, Consumer<Question> downstream) {
+            this.target = target;
+            this.downstream = downstream;
+        }
+
+        synchronized void offer(Question question) {
+            if (merged.size() >= target || !seenTexts.add(QuestionSetCache.normalize(question.getText()))) {
+                return;
+            }
+            merged.add(question);
+            downstream.accept(question);
+        }
+
+        synchronized int missing() {
+            return target - merged.size();
+        }
+
+        synchronized List<Question> result() {
+            return new ArrayList<>(merged);
+        }
+    }
+
+    // =========================================================
+    // SINGLE AI CALLS (one chunk each)
+    // =========================================================
+    private List<Question> requestQuestions(String topic, String difficulty, int count, int part, int parts,
+            Map<String, Integer> answeredBy) {
+        Map<String, Object> requestBody = buildRequestBody(topic, difficulty, count, part, parts, false);
+
+        try {
+            // FIX 3: Objects.requireNonNull ensures URL and Method are not null
+            // Adaptive limit + circuit breaker (see AiCallGuard)
+            // Response bytes go straight to Questions (see AiResponseDecoder); a garbled
+            // answer fails this attempt, so the router can try another provider
+            Answer answer = aiCallGuard.execute(() -> llmRouter.execute((provider, attempt) -> {
+                long start = System.nanoTime();
+                try {
+                    AiResponseDecoder.Decoded decoded = aiRestTemplate.execute(
+                            Objects.requireNonNull(provider.getUrl(), "API URL is null"),
+                            Objects.requireNonNull(HttpMethod.POST, "HTTP Method is null"),
+                            request -> {
+                                request.getHeaders().addAll(buildHeaders(provider));
+                                objectMapper.writeValue(request.getBody(), withModel(requestBody, provider));
+                            },
+                            response -> responseDecoder.decodeQuestions(response.getBody()));
+                    aiTelemetry.recordSuccess(provider.getModel(), difficulty, millisSince(start),
+                            decoded.promptTokens(), decoded.completionTokens());
+                    return new Answer(decoded.questions(), provider.getModel());
+                } catch (RuntimeException e) {
+                    recordFailure(provider, attempt, difficulty, start, e);
+                    throw e;
+                }
+            }));
+            answeredBy.merge(answer.model(), answer.questions().size(), Integer::sum);
+            return answer.questions();
 
         } catch (HttpClientErrorException.TooManyRequests e) {
             throw new RuntimeException("Daily AI Quota Exceeded. Please try again tomorrow.");
+        } catch (AiBusyException e) {
+            throw e; // Rejected locally, no call was made
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Error generating quiz: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private List<Question> streamChunk(String topic, String difficulty, int count, int part, int parts,
+            Consumer<Question> onQuestion, Map<String, Integer> answeredBy) {
+        Map<String, Object> requestBody = buildRequestBody(topic, difficulty, count, part, parts, true);
+        Answer answer;
+
+        try {
+            answer = aiCallGuard.execute(() -> llmRouter.execute((provider, attempt) -> {
+                // A hedged stream only reaches the user once it wins the race (first question)
+                StreamingQuestionParser parser = new StreamingQuestionParser(objectMapper, question -> {
+                    attempt.claimOrAbort();
+                    onQuestion.accept(question);
+                });
+                long start = System.nanoTime();
+                try {
+                    long[] usage = aiRestTemplate.execute(
+                            Objects.requireNonNull(provider.getUrl(), "API URL is null"),
+                            HttpMethod.POST,
+                            request -> {
+                                request.getHeaders().addAll(buildHeaders(provider));
+                                objectMapper.writeValue(request.getBody(), withModel(requestBody, provider));
+                            },
+                            response -> readEventStream(response.getBody(), parser));
+                    aiTelemetry.recordSuccess(provider.getModel(), difficulty, millisSince(start), usage[0],
+                            usage[1]);
+                    return new Answer(parser.getQuestions(), provider.getModel());
+                } catch (RuntimeException e) {
+                    recordFailure(provider, attempt, difficulty, start, e);
+                    throw e;
+                }
+            }));
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            throw new RuntimeException("Daily AI Quota Exceeded. Please try again tomorrow.");
+        } catch (AiBusyException e) {
+            throw e; // Rejected locally, no call was made
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error generating quiz: " + e.getMessage());
+        }
+
+        if (answer.questions().isEmpty()) {
+            throw new RuntimeException("Error generating quiz: AI returned no questions.");
+        }
+        answeredBy.merge(answer.model(), answer.questions().size(), Integer::sum);
+        return answer.questions();
+    }
+
+    // Reads "data: {...}" lines and feeds each content delta to the parser.
+    // Returns the token usage reported by the stream ({prompt, completion}, zeros if none was sent)
+    private long[] readEventStream(InputStream body, StreamingQuestionParser parser) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long[] usage = new long[2];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+            AiResponseDecoder.Chunk chunk = responseDecoder.decodeChunk(data);
+            if (chunk.promptTokens() > 0 || chunk.completionTokens() > 0) {
+                usage[0] = chunk.promptTokens();
+                usage[1] = chunk.completionTokens();
+            }
+            if (!chunk.content().isEmpty()) {
+                parser.feed(chunk.content());
+            }
+        }
+        return usage;
+    }
+
+    // A hedge that lost the race was cut off on purpose: not a provider failure
+    private void recordFailure(LlmProvider provider, LlmRouter.Attempt<?> attempt, String difficulty, long start,
+            RuntimeException error) {
+        if (!attempt.isCancelled()) {
+            aiTelemetry.recordFailure(provider.getModel(), difficulty, millisSince(start), error);
+        }
+    }
+
+    private long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private Map<String, Object> buildRequestBody(String topic, String difficulty, int count, int part, int parts,
+            boolean stream) {
+        String prompt = String.format(
+                "Generate %d multiple-choice questions on '%s' (%s level). " +
+                        "Return JSON array ONLY. Do not include markdown formatting like ```json. " +
+                        "Format: [{\"text\": \"...\", \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correctAnswer\": \"A\", \"explanation\": \"...\"}]",
+                count, topic, difficulty);
+        if (parts > 1) {
+            // Parallel chunks would otherwise come back with the same "obvious" questions
+            prompt += String.format(" This is batch %d of %d: cover different sub-topics than the other batches.",
+                    part, parts);
+        }
+
+        // FIX 1: Use Generic Type <String, Object> to fix "Raw Type" warning
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("messages", List.of(Map.of("role", "user", "content", prompt)));
+        requestBody.put("temperature", 0.7);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+
+    // Same prompt for every provider; only the model name differs
+    private Map<String, Object> withModel(Map<String, Object> requestBody, LlmProvider provider) {
+        Map<String, Object> body = new HashMap<>(requestBody);
+        body.put("model", provider.getModel());
+        return body;
+    }
+
+    private HttpHeaders buildHeaders(LlmProvider provider) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        // FIX 2: Objects.requireNonNull ensures apiKey is not null
+        headers.set("Authorization",
+                "Bearer " + Objects.requireNonNull(provider.getApiKey(), "API Key must not be null"));
+        return headers;
+    }
+}
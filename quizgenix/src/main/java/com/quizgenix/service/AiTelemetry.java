@@ -0,0 +1,166 @@
+package com.quizgenix.service;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.quizgenix.exception.AiResponseException;
+
+/**
+ * Per-call AI telemetry, kept per model and difficulty: latency histogram
+ * (HdrHistogram, so p99 is exact to 3 digits without storing samples), token
+ * usage from the response's "usage" block, cost from configured prices, and
+ * failures by class. Recording is lock-free; only the admin view copies data.
+ */
+@Service
+public class AiTelemetry {
+
+    // Longest latency the histograms track (beyond the total call timeout anyway)
+    private static final long MAX_LATENCY_MS = TimeUnit.HOURS.toMillis(1);
+
+    public enum FailureClass {
+        TIMEOUT, RATE_LIMITED, SERVER_ERROR, NETWORK, BAD_JSON, EMPTY_CHOICES, INVALID_STRUCTURE, OTHER
+    }
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<String, CallStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, double[]> prices = new ConcurrentHashMap<>();
+
+    public void recordSuccess(String model, String difficulty, long latencyMs, long promptTokens,
+            long completionTokens) {
+        CallStats s = statsFor(model, difficulty);
+        s.latency.recordValue(Math.min(latencyMs, MAX_LATENCY_MS));
+        s.successes.increment();
+        s.promptTokens.add(promptTokens);
+        s.completionTokens.add(completionTokens);
+    }
+
+    public void recordFailure(String model, String difficulty, long latencyMs, Throwable error) {
+        CallStats s = statsFor(model, difficulty);
+        s.latency.recordValue(Math.min(latencyMs, MAX_LATENCY_MS));
+        s.failures.get(classify(error)).increment();
+    }
+
+    public static FailureClass classify(Throwable error) {
+        if (error instanceof AiResponseException response) {
+            return FailureClass.valueOf(response.getKind().name());
+        }
+        if (error instanceof HttpStatusCodeException status) {
+            if (status.getStatusCode().value() == 429) {
+                return FailureClass.RATE_LIMITED;
+            }
+            return status.getStatusCode().is5xxServerError() ? FailureClass.SERVER_ERROR : FailureClass.OTHER;
+        }
+        if (error instanceof ResourceAccessException) {
+            // SocketTimeoutException is an InterruptedIOException, as are the client's deadline aborts
+            return error.getCause() instanceof InterruptedIOException ? FailureClass.TIMEOUT : FailureClass.NETWORK;
+        }
+        return FailureClass.OTHER;
+    }
+
+    // USD per call of the given size, from ai.pricing.<model>.input-per-1m / output-per-1m
+    public double cost(String model, long promptTokens, long completionTokens) {
+        double[] price = prices.computeIfAbsent(model, m -> new double[] {
+                environment.getProperty("ai.pricing." + m + ".input-per-1m", Double.class, 0.0),
+                environment.getProperty("ai.pricing." + m + ".output-per-1m", Double.class, 0.0) });
+        return (promptTokens * price[0] + completionTokens * price[1]) / 1_000_000;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long totalCalls = 0;
+        long totalFailures = 0;
+        long totalTokens = 0;
+        double totalCost = 0;
+
+        for (CallStats s : stats.values()) {
+            Histogram latency = s.latency.copy();
+            long successes = s.successes.sum();
+            long prompt = s.promptTokens.sum();
+            long completion = s.completionTokens.sum();
+            double cost = cost(s.model, prompt, completion);
+
+            Map<String, Object> failures = new LinkedHashMap<>();
+            long failed = 0;
+            for (Map.Entry<FailureClass, LongAdder> entry : s.failures.entrySet()) {
+                long count = entry.getValue().sum();
+                if (count > 0) {
+                    failures.put(entry.getKey().name(), count);
+                    failed += count;
+                }
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("model", s.model);
+            row.put("difficulty", s.difficulty);
+            row.put("calls", successes + failed);
+            row.put("successes", successes);
+            row.put("failures", failures);
+            row.put("errorRate", successes + failed == 0 ? 0 : (double) failed / (successes + failed));
+            row.put("p50Ms", latency.getValueAtPercentile(50));
+            row.put("p90Ms", latency.getValueAtPercentile(90));
+            row.put("p99Ms", latency.getValueAtPercentile(99));
+            row.put("maxMs", latency.getMaxValue());
+            row.put("meanMs", Math.round(latency.getMean()));
+            row.put("promptTokens", prompt);
+            row.put("completionTokens", completion);
+            row.put("avgTokensPerCall", successes == 0 ? 0 : (prompt + completion) / successes);
+            row.put("costUsd", cost);
+            row.put("costPerCallUsd", successes == 0 ? 0 : cost / successes);
+            rows.add(row);
+
+            totalCalls += successes + failed;
+            totalFailures += failed;
+            totalTokens += prompt + completion;
+            totalCost += cost;
+        }
+        rows.sort((a, b) -> Long.compare((long) b.get("calls"), (long) a.get("calls")));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("totalCalls", totalCalls);
+        data.put("totalFailures", totalFailures);
+        data.put("totalTokens", totalTokens);
+        data.put("totalCostUsd", totalCost);
+        data.put("breakdown", rows);
+        return data;
+    }
+
+    private CallStats statsFor(String model, String difficulty) {
+        String d = difficulty == null ? "unknown" : difficulty.trim().toLowerCase();
+        return stats.computeIfAbsent(model + "|" + d, k -> new CallStats(model, d));
+    }
+
+    private static final class CallStats {
+        private final String model;
+        private final String difficulty;
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(MAX_LATENCY_MS, 3);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final Map<FailureClass, LongAdder> failures = new EnumMap<>(FailureClass.class);
+
+        CallStats(String model, String difficulty) {
+            this.model = model;
+            this.difficulty = difficulty;
+            for (FailureClass failureClass : FailureClass.values()) {
+                failures.put(failureClass, new LongAdder()); // Filled up front: read concurrently afterwards
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.quizgenix.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.model.Question;
+import com.quizgenix.model.Quiz;
+
+/**
+ * Answer keys of recent quizzes, filled when a quiz is created, so scoring a
+ * submission is a loop over two arrays instead of loading the quiz graph.
+ * A key holds the question ids (to save the answers), the trimmed text of each
+ * correct option, and the XP per correct answer for the quiz's difficulty.
+ */
+@Service
+public class AnswerKeyCache {
+
+    // "answer_0", "answer_1"... built once instead of on every submission
+    private static final String[] ANSWER_PARAMS = new String[200];
+
+    static {
+        for (int i = 0; i < ANSWER_PARAMS.length; i++) {
+            ANSWER_PARAMS[i] = "answer_" + i;
+        }
+    }
+
+    @Value("${quiz.answer-keys.max-entries:20000}")
+    private int maxEntries;
+
+    // Access-ordered map = LRU: the least recently created or scored quiz goes first; guarded by its own monitor
+    private final LinkedHashMap<Long, AnswerKey> keys = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, AnswerKey> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public void put(Quiz quiz) {
+        if (quiz.getId() == null || quiz.getQuestions() == null) {
+            return;
+        }
+        AnswerKey key = AnswerKey.of(quiz);
+        synchronized (keys) {
+            keys.put(quiz.getId(), key);
+        }
+    }
+
+    // Null on a miss (restart, eviction): the caller loads the quiz once and put()s it
+    public AnswerKey get(Long quizId) {
+        synchronized (keys) {
+            return keys.get(quizId);
+        }
+    }
+
+    public void remove(Long quizId) {
+        synchronized (keys) {
+            keys.remove(quizId);
+        }
+    }
+
+    static String answerParam(int index) {
+        return index < ANSWER_PARAMS.length ? ANSWER_PARAMS[index] : "answer_" + index;
+    }
+
+    public static final class AnswerKey {
+        private final Long ownerId;
+        private final String difficulty;
+        private final int xpPerCorrect;
+        private final long[] questionIds;
+        private final String[] correct; // Trimmed correct option text, in question order
+
+        private AnswerKey(Long ownerId, String difficulty, long[] questionIds, String[] correct) {
+            this.ownerId = ownerId;
+            this.difficulty = difficulty;
+            this.xpPerCorrect = xpPerCorrect(difficulty);
+            this.questionIds = questionIds;
+            this.correct = correct;
+        }
+
+        public static AnswerKey of(Quiz quiz) {
+            List<Question> questions = quiz.getQuestions();
+            long[] ids = new long[questions.size()];
+            String[] correct = new String[questions.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Question q = questions.get(i);
+                ids[i] = q.getId();
+                correct[i] = correctText(q);
+            }
+            // getId() on the lazy owner proxy does not load the user
+            Long ownerId = quiz.getUser() != null ? quiz.getUser().getId() : null;
+            return new AnswerKey(ownerId, quiz.getDifficulty(), ids, correct);
+        }
+
+        // Correct answers for the submitted form (answer_0, answer_1...); fills answers[] with the trimmed input
+        public int score(Map<String, String> params, String[] answers) {
+            int correctAnswers = 0;
+            for (int i = 0; i < correct.length; i++) {
+                String submitted = params.get(answerParam(i));
+                String answer = submitted == null ? "" : submitted.trim();
+                answers[i] = answer;
+                if (!answer.isEmpty() && correct[i] != null && answer.equalsIgnoreCase(correct[i])) {
+                    correctAnswers++;
+                }
+            }
+            return correctAnswers;
+        }
+
+        public int size() {
+            return correct.length;
+        }
+
+        // Shared with every submission of the quiz: read-only
+        public long[] getQuestionIds() {
+            return questionIds;
+        }
+
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        public String getDifficulty() {
+            return difficulty;
+        }
+
+        public int getXpPerCorrect() {
+            return xpPerCorrect;
+        }
+
+        // "A" -> text of option A; answers stored as full text are used as-is
+        private static String correctText(Question q) {
+            int index = q.getCorrectAnswerIndex();
+            List<String> options = q.getOptions();
+            String text = index != -1 && options != null && index < options.size()
+                    ? options.get(index)
+                    : q.getCorrectAnswer();
+            return text != null ? text.trim() : null;
+        }
+
+        private static int xpPerCorrect(String difficulty) {
+            if ("Medium".equalsIgnoreCase(difficulty))
+                return 2;
+            if ("Hard".equalsIgnoreCase(difficulty))
+                return 3;
+            if ("Expert".equalsIgnoreCase(difficulty))
+                return 5;
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.quizgenix.model.OptionListConverter;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * One-off migration of canonical options from the canonical_question_options
+ * join table (one row per option) into the encoded option_list column.
+ * Runs in batches before the web server starts, so no quiz is shown without
+ * its options; each batch is idempotent and does nothing once the table is empty.
+ */
+@Component
+@Lazy(false)
+public class CanonicalOptionsMigration implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Not used directly: building it runs ddl-auto, which adds the option_list column
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${quiz.canonical.backfill-batch-size:500}")
+    private int batchSize;
+
+    private final OptionListConverter converter = new OptionListConverter();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int migrated = 0;
+        try {
+            List<Long> ids;
+            while (!(ids = nextBatch()).isEmpty()) {
+                migrate(ids);
+                migrated += ids.size();
+            }
+        } catch (DataAccessException e) {
+            // Fresh schema: the join table was never created
+            System.out.println(">>> Canonical options migration skipped: " + e.getMostSpecificCause().getMessage());
+            return;
+        }
+        if (migrated > 0) {
+            System.out.println(">>> Moved options of " + migrated + " canonical questions into option_list");
+        }
+    }
+
+    private List<Long> nextBatch() {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT canonical_id FROM canonical_question_options ORDER BY canonical_id LIMIT ?",
+                Long.class, batchSize);
+    }
+
+    private void migrate(List<Long> ids) {
+        // Ids come from our own query, never from user input
+        String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        Map<Long, List<String>> options = new LinkedHashMap<>();
+        ids.forEach(id -> options.put(id, new ArrayList<>()));
+        jdbcTemplate.query("SELECT canonical_id, option_text FROM canonical_question_options "
+                + "WHERE canonical_id IN (" + in + ") ORDER BY canonical_id, option_index",
+                rs -> {
+                    options.get(rs.getLong("canonical_id")).add(rs.getString("option_text"));
+                });
+
+        jdbcTemplate.batchUpdate("UPDATE canonical_questions SET option_list = ? WHERE id = ?",
+                ids, ids.size(),
+                (ps, id) -> {
+                    ps.setString(1, converter.convertToDatabaseColumn(options.get(id)));
+                    ps.setLong(2, id);
+                });
+        jdbcTemplate.update("DELETE FROM canonical_question_options WHERE canonical_id IN (" + in + ")");
+    }
+}
@@ -0,0 +1,107 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.quizgenix.model.Question;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * One-off migration for questions saved before the canonical store existed.
+ * Reads the legacy text / answer / explanation columns and question_options rows,
+ * links each question to its canonical row, then clears the legacy copies.
+ * Runs in batches before the web server starts, so no question is served with its
+ * content half-moved; does nothing once every row is linked.
+ */
+@Component
+@Lazy(false)
+public class CanonicalQuestionBackfill implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CanonicalQuestionService canonicalQuestionService;
+
+    // Not used directly: building it runs ddl-auto, which adds the canonical_id column
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${quiz.canonical.backfill-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int migrated = 0;
+        try {
+            List<Question> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                canonicalQuestionService.link(batch);
+                saveLinks(batch);
+                migrated += batch.size();
+            }
+        } catch (DataAccessException e) {
+            // Fresh schema: the legacy columns/table were never created
+            System.out.println(">>> Canonical question backfill skipped: " + e.getMostSpecificCause().getMessage());
+            return;
+        }
+        if (migrated > 0) {
+            System.out.println(">>> Linked " + migrated + " legacy questions to canonical content");
+        }
+    }
+
+    private List<Question> nextBatch() {
+        List<Question> batch = jdbcTemplate.query(
+                "SELECT id, text, correct_answer, explanation FROM question "
+                        + "WHERE canonical_id IS NULL AND text IS NOT NULL ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    Question q = new Question();
+                    q.setId(rs.getLong("id"));
+                    q.setText(rs.getString("text"));
+                    q.setCorrectAnswer(rs.getString("correct_answer"));
+                    q.setExplanation(rs.getString("explanation"));
+                    q.setOptions(new ArrayList<>());
+                    return q;
+                },
+                batchSize);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+
+        Map<Long, Question> byId = new HashMap<>();
+        batch.forEach(q -> byId.put(q.getId(), q));
+        jdbcTemplate.query("SELECT question_id, options FROM question_options WHERE question_id IN (" + ids(batch) + ")",
+                rs -> {
+                    byId.get(rs.getLong("question_id")).getOptions().add(rs.getString("options"));
+                });
+        return batch;
+    }
+
+    private void saveLinks(List<Question> batch) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE question SET canonical_id = ?, text = NULL, correct_answer = NULL, explanation = NULL WHERE id = ?",
+                batch, batch.size(),
+                (ps, q) -> {
+                    ps.setLong(1, q.getCanonical().getId());
+                    ps.setLong(2, q.getId());
+                });
+        jdbcTemplate.update("DELETE FROM question_options WHERE question_id IN (" + ids(batch) + ")");
+    }
+
+    // Ids come from our own query, never from user input
+    private String ids(List<Question> batch) {
+        return batch.stream().map(q -> String.valueOf(q.getId())).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,107 @@
+package com.quizgenix.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.model.CanonicalQuestion;
+import com.quizgenix.model.Question;
+import com.quizgenix.repository.CanonicalQuestionRepository;
+
+/**
+ * Content-addressed store for question content.
+ * A question's text, options and answer key are hashed (after normalization);
+ * identical questions across quizzes share one canonical row, so a new quiz
+ * mostly inserts slim per-quiz rows (position + user answer).
+ */
+@Service
+public class CanonicalQuestionService {
+
+    @Autowired
+    private CanonicalQuestionRepository canonicalQuestionRepository;
+
+    // Points every question at its canonical row, inserting only content never seen before
+    public void link(List<Question> questions) {
+        Map<String, List<Question>> byHash = new LinkedHashMap<>();
+        for (Question q : questions) {
+            if (q.getCanonical() == null) {
+                byHash.computeIfAbsent(contentHash(q), h -> new ArrayList<>()).add(q);
+            }
+        }
+        if (byHash.isEmpty()) {
+            return;
+        }
+
+        Map<String, CanonicalQuestion> known = new HashMap<>();
+        for (CanonicalQuestion c : canonicalQuestionRepository.findByContentHashIn(byHash.keySet())) {
+            known.put(c.getContentHash(), c);
+        }
+
+        List<CanonicalQuestion> fresh = new ArrayList<>();
+        for (Map.Entry<String, List<Question>> entry : byHash.entrySet()) {
+            if (!known.containsKey(entry.getKey())) {
+                fresh.add(toCanonical(entry.getKey(), entry.getValue().get(0)));
+            }
+        }
+        for (CanonicalQuestion c : save(fresh)) {
+            known.put(c.getContentHash(), c);
+        }
+
+        byHash.forEach((hash, group) -> group.forEach(q -> q.setCanonical(known.get(hash))));
+    }
+
+    public static String contentHash(Question question) {
+        StringBuilder content = new StringBuilder(QuestionSetCache.normalize(question.getText()));
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                content.append('\u0000').append(QuestionSetCache.normalize(option));
+            }
+        }
+        content.append('\u0001').append(question.getCorrectAnswer() == null ? "" : question.getCorrectAnswer().trim());
+
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private List<CanonicalQuestion> save(List<CanonicalQuestion> fresh) {
+        if (fresh.isEmpty()) {
+            return fresh;
+        }
+        try {
+            return canonicalQuestionRepository.saveAll(fresh);
+        } catch (DataIntegrityViolationException e) {
+            // Another quiz inserted some of the same content meanwhile: settle row by row
+            List<CanonicalQuestion> saved = new ArrayList<>();
+            for (CanonicalQuestion c : fresh) {
+                c.setId(null);
+                CanonicalQuestion existing = canonicalQuestionRepository.findByContentHash(c.getContentHash());
+                saved.add(existing != null ? existing : canonicalQuestionRepository.save(c));
+            }
+            return saved;
+        }
+    }
+
+    private CanonicalQuestion toCanonical(String hash, Question question) {
+        CanonicalQuestion c = new CanonicalQuestion();
+        c.setContentHash(hash);
+        c.setText(question.getText());
+        c.setCorrectAnswer(question.getCorrectAnswer());
+        c.setExplanation(question.getExplanation());
+        c.setOptions(question.getOptions() != null ? new ArrayList<>(question.getOptions()) : new ArrayList<>());
+        return c;
+    }
+}
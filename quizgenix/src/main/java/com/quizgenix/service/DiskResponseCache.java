@@ -0,0 +1,372 @@
+package com.quizgenix.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only, memory-mapped store of validated AI answers, keyed by prompt
+ * fingerprint (topic, difficulty, count, model). Survives container restarts,
+ * unlike the in-memory caches, and lives off-heap.
+ *
+ * Record layout: magic | keyLen | valueLen | createdAt | crc32(key+value) | key | value.
+ * The magic is written last, so a record cut short by a crash is simply the end
+ * of the log. The hash index (fingerprint -> offset) is rebuilt by scanning the
+ * log on startup; the newest record for a key wins. When the file is full it is
+ * compacted: live, unexpired records are rewritten newest-first up to the target size.
+ */
+@Service
+public class DiskResponseCache {
+
+    private static final int MAGIC = 0x51474331; // "QGC1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+    private static final String FILE_NAME = "responses.log";
+
+    @Value("${quiz.disk-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.disk-cache.dir:data/ai-cache}")
+    private String directory;
+
+    @Value("${quiz.disk-cache.max-mb:64}")
+    private int maxMb;
+
+    // Compaction keeps the newest entries up to this fraction of the file (at most 0.5, so the
+    // largest record accepted always fits behind the survivors)
+    @Value("${quiz.disk-cache.compact-target:0.5}")
+    private double compactTarget;
+
+    @Value("${quiz.disk-cache.ttl-days:30}")
+    private int ttlDays;
+
+    // Guarded by this
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private FingerprintIndex index = new FingerprintIndex(1024);
+
+    private long hits;
+    private long misses;
+    private long corrupt;
+    private long compactions;
+
+    @PostConstruct
+    synchronized void open() {
+        if (!enabled) {
+            return;
+        }
+        if (!(compactTarget > 0 && compactTarget <= 0.5)) {
+            System.out.println(">>> quiz.disk-cache.compact-target=" + compactTarget + " is outside (0, 0.5]; using 0.5");
+            compactTarget = 0.5;
+        }
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            map(dir.resolve(FILE_NAME));
+            rebuildIndex();
+            System.out.println(">>> AI disk cache: " + index.size() + " entries, " + writePosition + " bytes used");
+        } catch (IOException e) {
+            // A read-only or full disk must not take generation down with it
+            System.out.println(">>> AI disk cache disabled: " + e.getMessage());
+            enabled = false;
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    public static String fingerprint(String topic, String difficulty, int count, String model) {
+        return QuestionSetCache.key(topic, difficulty, count) + "|" + model;
+    }
+
+    // Returns the stored value, or null if absent, expired or failing its checksum
+    public synchronized byte[] get(String key) {
+        if (!enabled || buffer == null) {
+            return null;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int offset = index.get(hash(keyBytes));
+        if (offset < 0) {
+            misses++;
+            return null;
+        }
+
+        int keyLength = buffer.getInt(offset + 4);
+        int valueLength = buffer.getInt(offset + 8);
+        long createdAt = buffer.getLong(offset + 12);
+        byte[] storedKey = read(offset + HEADER_BYTES, keyLength);
+        if (!Arrays.equals(storedKey, keyBytes) || isExpired(createdAt)) {
+            misses++; // Hash collision or stale entry
+            return null;
+        }
+
+        byte[] value = read(offset + HEADER_BYTES + keyLength, valueLength);
+        if (checksum(storedKey, value) != buffer.getInt(offset + 20)) {
+            corrupt++;
+            index.remove(hash(keyBytes));
+            return null;
+        }
+        hits++;
+        return value;
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        if (!enabled || buffer == null) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = HEADER_BYTES + keyBytes.length + value.length;
+        if (recordBytes > buffer.capacity() * compactTarget) {
+            return; // Would not survive a compaction anyway
+        }
+        try {
+            if (writePosition + recordBytes > buffer.capacity()) {
+                compact();
+            }
+            if (writePosition + recordBytes > buffer.capacity()) {
+                return; // Cannot happen with compact-target <= 0.5; never write past the mapping
+            }
+            int offset = append(buffer, writePosition, keyBytes, value, System.currentTimeMillis());
+            index.put(hash(keyBytes), offset);
+        } catch (IOException e) {
+            System.out.println(">>> AI disk cache write failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("enabled", enabled);
+        data.put("entries", index.size());
+        data.put("bytesUsed", writePosition);
+        data.put("capacityBytes", buffer == null ? 0 : buffer.capacity());
+        data.put("hits", hits);
+        data.put("misses", misses);
+        data.put("corrupt", corrupt);
+        data.put("compactions", compactions);
+        return data;
+    }
+
+    // =========================================================
+    // LOG FILE
+    // =========================================================
+    private void map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Maps the full capacity up front (untouched pages stay sparse on disk);
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) maxMb * 1024 * 1024);
+        }
+    }
+
+    private void rebuildIndex() {
+        index = new FingerprintIndex(1024);
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            int keyLength = buffer.getInt(position + 4);
+            int valueLength = buffer.getInt(position + 8);
+            long end = (long) position + HEADER_BYTES + keyLength + valueLength;
+            if (keyLength <= 0 || valueLength < 0 || end > buffer.capacity()) {
+                break; // Garbage header: treat as end of log
+            }
+            byte[] key = read(position + HEADER_BYTES, keyLength);
+            byte[] value = read(position + HEADER_BYTES + keyLength, valueLength);
+            if (checksum(key, value) == buffer.getInt(position + 20)) {
+                index.put(hash(key), position);
+            } else {
+                corrupt++;
+            }
+            position = (int) end;
+        }
+        writePosition = position;
+    }
+
+    // Rewrites live entries newest-first into a fresh file, then swaps it in
+    private void compact() throws IOException {
+        List<int[]> live = new ArrayList<>(); // {offset, recordBytes}
+        index.forEachOffset(offset -> {
+            if (!isExpired(buffer.getLong(offset + 12))) {
+                live.add(new int[] { offset, HEADER_BYTES + buffer.getInt(offset + 4) + buffer.getInt(offset + 8) });
+            }
+        });
+        live.sort(Comparator.comparingLong((int[] entry) -> buffer.getLong(entry[0] + 12)).reversed());
+
+        Path dir = Paths.get(directory);
+        Path tmp = dir.resolve(FILE_NAME + ".compact");
+        Files.deleteIfExists(tmp);
+        long budget = (long) (buffer.capacity() * compactTarget);
+
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = tmpChannel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity());
+            int position = 0;
+            for (int[] entry : live) {
+                if (position + entry[1] > budget) {
+                    break;
+                }
+                int offset = entry[0];
+                int keyLength = buffer.getInt(offset + 4);
+                byte[] key = read(offset + HEADER_BYTES, keyLength);
+                byte[] value = read(offset + HEADER_BYTES + keyLength, buffer.getInt(offset + 8));
+                position = append(target, position, key, value, buffer.getLong(offset + 12)) + entry[1];
+            }
+            target.force();
+        }
+
+        close();
+        Files.move(tmp, dir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map(dir.resolve(FILE_NAME));
+        rebuildIndex();
+        compactions++;
+    }
+
+    // Returns the record's offset
+    private int append(MappedByteBuffer target, int offset, byte[] key, byte[] value, long createdAt) {
+        target.putInt(offset + 4, key.length);
+        target.putInt(offset + 8, value.length);
+        target.putLong(offset + 12, createdAt);
+        target.putInt(offset + 20, checksum(key, value));
+        target.put(offset + HEADER_BYTES, key);
+        target.put(offset + HEADER_BYTES + key.length, value);
+        target.putInt(offset, MAGIC); // Last: the record only "exists" once it is complete
+        if (target == buffer) {
+            writePosition = offset + HEADER_BYTES + key.length + value.length;
+        }
+        return offset;
+    }
+
+    private byte[] read(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    private boolean isExpired(long createdAt) {
+        return ttlDays > 0 && System.currentTimeMillis() - createdAt > TimeUnit.DAYS.toMillis(ttlDays);
+    }
+
+    private int checksum(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    // 64-bit FNV-1a; 0 is reserved for empty index slots
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    // Open-addressing long -> int map: two flat arrays, no boxing, no per-entry objects
+    private static class FingerprintIndex {
+        private long[] hashes;
+        private int[] offsets;
+        private int size;
+
+        FingerprintIndex(int capacity) {
+            hashes = new long[capacity];
+            offsets = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(long hash) {
+            int mask = hashes.length - 1;
+            for (int i = (int) hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    return offsets[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long hash, int offset) {
+            if ((size + 1) * 2 > hashes.length) {
+                grow();
+            }
+            int mask = hashes.length - 1;
+            int i = (int) hash & mask;
+            while (hashes[i] != 0 && hashes[i] != hash) {
+                i = (i + 1) & mask;
+            }
+            if (hashes[i] == 0) {
+                size++;
+            }
+            hashes[i] = hash;
+            offsets[i] = offset;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        void remove(long hash) {
+            int mask = hashes.length - 1;
+            int i = (int) hash & mask;
+            while (hashes[i] != hash) {
+                if (hashes[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            hashes[i] = 0;
+            size--;
+            for (int j = (i + 1) & mask; hashes[j] != 0; j = (j + 1) & mask) {
+                long moved = hashes[j];
+                int movedOffset = offsets[j];
+                hashes[j] = 0;
+                size--;
+                put(moved, movedOffset);
+            }
+        }
+
+        void forEachOffset(IntConsumer action) {
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != 0) {
+                    action.accept(offsets[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldHashes = hashes;
+            int[] oldOffsets = offsets;
+            hashes = new long[oldHashes.length * 2];
+            offsets = new int[oldOffsets.length * 2];
+            size = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    put(oldHashes[i], oldOffsets[i]);
+                }
+            }
+        }
+    }
+}
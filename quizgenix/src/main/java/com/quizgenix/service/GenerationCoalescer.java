@@ -0,0 +1,104 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.exception.AiBusyException;
+import com.quizgenix.model.Question;
+
+/**
+ * Single-flight guard for AI generation.
+ * When a whole class hits "Generate" on the same topic at once, only the first
+ * request calls the AI; identical requests arriving while it is in flight wait
+ * on the same future and each get their own copy of the questions.
+ * A follower waits no longer than one AI call may take (limiter queue + HTTP deadline).
+ */
+@Service
+public class GenerationCoalescer {
+
+    private final Map<String, CompletableFuture<List<Question>>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${ai.limiter.queue-timeout-ms:10000}")
+    private long queueTimeoutMs;
+
+    @Value("${ai.http.total-timeout-ms:90000}")
+    private long callTimeoutMs;
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong followerTimeouts = new AtomicLong();
+
+    public List<Question> execute(String topic, String difficulty, int count, Supplier<List<Question>> aiCall) {
+        String key = QuestionSetCache.key(topic, difficulty, count);
+        CompletableFuture<List<Question>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Question>> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return copyAll(await(existing));
+        }
+
+        leaders.incrementAndGet();
+        try {
+            List<Question> questions = aiCall.get();
+            // Followers copy from a snapshot, never from the entities this caller is about to persist
+            mine.complete(copyAll(questions));
+            return questions;
+        } catch (Throwable e) {
+            // Errors too: followers must never wait on a future nobody completes
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("inFlight", inFlight.size());
+        data.put("aiCalls", leaders.get());
+        data.put("coalesced", coalesced.get());
+        data.put("followerTimeouts", followerTimeouts.get());
+        return data;
+    }
+
+    private List<Question> await(CompletableFuture<List<Question>> future) {
+        try {
+            // A copy, so this follower's timeout does not fail the future for the others
+            return future.copy().orTimeout(queueTimeoutMs + callTimeoutMs, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                followerTimeouts.incrementAndGet();
+                throw new AiBusyException("⚠️ AI Service is busy. Please try again.");
+            }
+            // Same failure the leader saw (quota exceeded, bad JSON...)
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private List<Question> copyAll(List<Question> questions) {
+        List<Question> copies = new ArrayList<>(questions.size());
+        for (Question q : questions) {
+            copies.add(q.copy());
+        }
+        return copies;
+    }
+}
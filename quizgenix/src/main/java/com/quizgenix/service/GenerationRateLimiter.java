@@ -0,0 +1,149 @@
+package com.quizgenix.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.model.User;
+
+/**
+ * Token buckets for quiz generation: one per user (sized by plan) plus one
+ * global bucket matched to the provider quota.
+ *
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time"
+ * (GCRA), so acquiring a token is one CAS with no lock and no allocation.
+ */
+@Service
+public class GenerationRateLimiter {
+
+    @Value("${ratelimit.free.per-minute:2}")
+    private double freePerMinute;
+
+    @Value("${ratelimit.free.burst:3}")
+    private int freeBurst;
+
+    @Value("${ratelimit.paid.per-minute:6}")
+    private double paidPerMinute;
+
+    @Value("${ratelimit.paid.burst:10}")
+    private int paidBurst;
+
+    @Value("${ratelimit.global.per-minute:30}")
+    private double globalPerMinute;
+
+    @Value("${ratelimit.global.burst:30}")
+    private int globalBurst;
+
+    @Value("${ratelimit.idle-evict-minutes:30}")
+    private long idleEvictMinutes;
+
+    private final Map<Long, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private volatile TokenBucket globalBucket;
+
+    private final AtomicLong rejectedUser = new AtomicLong();
+    private final AtomicLong rejectedGlobal = new AtomicLong();
+
+    // Returns 0 if the generation may proceed, otherwise seconds until it may be retried
+    public long tryAcquire(User user) {
+        TokenBucket userBucket = userBuckets.computeIfAbsent(user.getId(), id -> newUserBucket(user));
+
+        long userWait = userBucket.tryAcquire();
+        if (userWait > 0) {
+            rejectedUser.incrementAndGet();
+            return toRetryAfterSeconds(userWait);
+        }
+
+        long globalWait = global().tryAcquire();
+        if (globalWait > 0) {
+            userBucket.refund(); // Not the user's fault: give their token back
+            rejectedGlobal.incrementAndGet();
+            return toRetryAfterSeconds(globalWait);
+        }
+        return 0;
+    }
+
+    // Plan changed (upgrade/expiry): next request builds a bucket with the new size
+    public void reset(User user) {
+        userBuckets.remove(user.getId());
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        long idleNanos = TimeUnit.MINUTES.toNanos(idleEvictMinutes);
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userBuckets", userBuckets.size());
+        data.put("rejectedUser", rejectedUser.get());
+        data.put("rejectedGlobal", rejectedGlobal.get());
+        return data;
+    }
+
+    private TokenBucket newUserBucket(User user) {
+        String plan = user.getActivePlan();
+        boolean free = plan == null || "free".equalsIgnoreCase(plan);
+        return free ? new TokenBucket(freePerMinute, freeBurst) : new TokenBucket(paidPerMinute, paidBurst);
+    }
+
+    private TokenBucket global() {
+        TokenBucket bucket = globalBucket;
+        if (bucket == null) {
+            synchronized (this) {
+                if (globalBucket == null) {
+                    globalBucket = new TokenBucket(globalPerMinute, globalBurst);
+                }
+                bucket = globalBucket;
+            }
+        }
+        return bucket;
+    }
+
+    private long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    // GCRA token bucket: "tat" is when the bucket would be completely full again
+    private static class TokenBucket {
+        private final long intervalNanos; // Time to earn one token
+        private final long burstNanos; // Head room the bucket allows
+        private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+        TokenBucket(double perMinute, int burst) {
+            this.intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / perMinute);
+            this.burstNanos = intervalNanos * burst;
+        }
+
+        // 0 on success, otherwise nanos until a token is available
+        long tryAcquire() {
+            while (true) {
+                long now = System.nanoTime();
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long wait = next - now - burstNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund() {
+            tat.addAndGet(-intervalNanos);
+        }
+
+        boolean isIdle(long now, long idleNanos) {
+            return now - tat.get() > idleNanos;
+        }
+    }
+}
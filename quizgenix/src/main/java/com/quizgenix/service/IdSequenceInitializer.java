@@ -0,0 +1,63 @@
+package com.quizgenix.service;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Moves the id sequences of quizzes and questions past the ids already in use.
+ *
+ * These tables used IDENTITY (AUTO_INCREMENT) ids before switching to pooled
+ * sequences; MySQL has no sequences, so Hibernate keeps each one in a one-row
+ * "<name>_seq" table that starts at 1 when first created. Runs once the schema
+ * is up and before the web server accepts requests, so no insert can reuse an id.
+ */
+@Component
+@Lazy(false)
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Sequence table -> entity table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "quiz_seq", "quiz",
+            "question_seq", "question",
+            "canonical_questions_seq", "canonical_questions");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Not used directly: building it runs ddl-auto, which creates the sequence tables
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    private void align(String sequence, String table) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            // The pooled optimizer hands out (next_val - allocationSize + 1) .. next_val first
+            long floor = maxId + ALLOCATION_SIZE + 1;
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + sequence, Integer.class);
+            int updated = rows == 0
+                    ? jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) VALUES (?)", floor)
+                    : jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor);
+            if (updated > 0 && maxId > 0) {
+                System.out.println(">>> Id sequence " + sequence + " moved past existing id " + maxId);
+            }
+        } catch (DataAccessException e) {
+            System.out.println(">>> Id sequence " + sequence + " not aligned: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.quizgenix.service;
+
+import java.util.Arrays;
+
+/**
+ * Users ordered by XP (highest first, lower id first on ties) in an indexable skip list
+ * kept in primitive arrays. Every link stores its span, the number of users it skips,
+ * so a rank is the sum of the spans on the search path: rank, position and "the n users
+ * from position p" are all O(log n), with no per-user objects for the GC to walk.
+ *
+ * Not thread-safe; LeaderboardService guards it with a read/write lock.
+ */
+public final class LeaderboardIndex {
+
+    private static final int MAX_LEVEL = 24; // p = 1/4: enough for far more than 2^31 users
+    private static final int NIL = -1;
+    private static final int HEAD = 0;
+
+    // Per node: user id, XP, offset of its level-0 link, number of levels
+    private long[] ids;
+    private int[] xps;
+    private int[] firstLink;
+    private byte[] heights;
+    private int nodeCount;
+
+    // Per node and level: next node and how many positions that link advances
+    private int[] links;
+    private int[] spans;
+    private int linkCount;
+
+    // Released nodes per height, chained through their level-0 link
+    private final int[] freeHead = new int[MAX_LEVEL + 1];
+
+    private final int[] update = new int[MAX_LEVEL];
+    private final int[] traversed = new int[MAX_LEVEL];
+
+    private LongIntMap nodeOf;
+    private int level;
+    private int size;
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    public LeaderboardIndex() {
+        this(1024);
+    }
+
+    public LeaderboardIndex(int expectedUsers) {
+        int capacity = Math.max(16, expectedUsers + 1);
+        ids = new long[capacity];
+        xps = new int[capacity];
+        firstLink = new int[capacity];
+        heights = new byte[capacity];
+        links = new int[capacity * 4 / 3 + MAX_LEVEL];
+        spans = new int[links.length];
+        nodeOf = new LongIntMap(expectedUsers);
+        reset();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long id) {
+        return nodeOf.get(id) != NIL;
+    }
+
+    public int xpOf(long id, int defaultXp) {
+        int node = nodeOf.get(id);
+        return node != NIL ? xps[node] : defaultXp;
+    }
+
+    // Adds the user or moves them to their new XP
+    public void put(long id, int xp) {
+        int node = nodeOf.get(id);
+        if (node != NIL) {
+            if (xps[node] == xp) {
+                return;
+            }
+            unlink(node);
+        }
+        insert(id, xp);
+    }
+
+    public boolean putIfAbsent(long id, int xp) {
+        if (contains(id)) {
+            return false;
+        }
+        insert(id, xp);
+        return true;
+    }
+
+    public void remove(long id) {
+        int node = nodeOf.get(id);
+        if (node != NIL) {
+            unlink(node);
+        }
+    }
+
+    public void clear() {
+        nodeOf = new LongIntMap(16);
+        reset();
+    }
+
+    // Users with strictly more XP: a competition rank is countAbove(xp) + 1
+    public int countAbove(int xp) {
+        int x = HEAD;
+        int count = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            int next;
+            while ((next = links[firstLink[x] + i]) != NIL && xps[next] > xp) {
+                count += spans[firstLink[x] + i];
+                x = next;
+            }
+        }
+        return count;
+    }
+
+    // 0-based place in the order, or -1 for an unknown user
+    public int position(long id) {
+        int node = nodeOf.get(id);
+        if (node == NIL) {
+            return -1;
+        }
+        int xp = xps[node];
+        int x = HEAD;
+        int count = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            int next;
+            while ((next = links[firstLink[x] + i]) != NIL && before(next, xp, id)) {
+                count += spans[firstLink[x] + i];
+                x = next;
+            }
+        }
+        return count;
+    }
+
+    // Copies up to outIds.length users starting at position from; returns how many were copied
+    public int range(int from, long[] outIds, int[] outXps) {
+        if (from < 0 || from >= size) {
+            return 0;
+        }
+        int x = nodeAt(from);
+        int n = 0;
+        while (n < outIds.length && x != NIL) {
+            outIds[n] = ids[x];
+            outXps[n] = xps[x];
+            n++;
+            x = links[firstLink[x]];
+        }
+        return n;
+    }
+
+    // Every user id, in order
+    public long[] ids() {
+        long[] out = new long[size];
+        int x = links[firstLink[HEAD]];
+        for (int n = 0; x != NIL; n++) {
+            out[n] = ids[x];
+            x = links[firstLink[x]];
+        }
+        return out;
+    }
+
+    private void insert(long id, int xp) {
+        int x = HEAD;
+        for (int i = level - 1; i >= 0; i--) {
+            traversed[i] = i == level - 1 ? 0 : traversed[i + 1];
+            int next;
+            while ((next = links[firstLink[x] + i]) != NIL && before(next, xp, id)) {
+                traversed[i] += spans[firstLink[x] + i];
+                x = next;
+            }
+            update[i] = x;
+        }
+        int height = randomHeight();
+        if (height > level) {
+            for (int i = level; i < height; i++) {
+                traversed[i] = 0;
+                update[i] = HEAD;
+                spans[firstLink[HEAD] + i] = size;
+            }
+            level = height;
+        }
+        int node = allocate(height);
+        ids[node] = id;
+        xps[node] = xp;
+        for (int i = 0; i < height; i++) {
+            int from = firstLink[update[i]] + i;
+            int own = firstLink[node] + i;
+            links[own] = links[from];
+            links[from] = node;
+            spans[own] = spans[from] - (traversed[0] - traversed[i]);
+            spans[from] = traversed[0] - traversed[i] + 1;
+        }
+        for (int i = height; i < level; i++) {
+            spans[firstLink[update[i]] + i]++;
+        }
+        size++;
+        nodeOf.put(id, node);
+    }
+
+    private void unlink(int node) {
+        long id = ids[node];
+        int xp = xps[node];
+        int x = HEAD;
+        for (int i = level - 1; i >= 0; i--) {
+            int next;
+            while ((next = links[firstLink[x] + i]) != NIL && before(next, xp, id)) {
+                x = next;
+            }
+            update[i] = x;
+        }
+        for (int i = 0; i < level; i++) {
+            int from = firstLink[update[i]] + i;
+            if (links[from] == node) {
+                int own = firstLink[node] + i;
+                spans[from] += spans[own] - 1;
+                links[from] = links[own];
+            } else {
+                spans[from]--;
+            }
+        }
+        while (level > 1 && links[firstLink[HEAD] + level - 1] == NIL) {
+            level--;
+        }
+        size--;
+        nodeOf.remove(id);
+        release(node);
+    }
+
+    private int nodeAt(int position) {
+        int target = position + 1;
+        int x = HEAD;
+        int count = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            int next;
+            while ((next = links[firstLink[x] + i]) != NIL && count + spans[firstLink[x] + i] <= target) {
+                count += spans[firstLink[x] + i];
+                x = next;
+            }
+            if (count == target) {
+                return x;
+            }
+        }
+        return NIL;
+    }
+
+    // Whether node sorts before (xp, id): more XP first, then lower id
+    private boolean before(int node, int xp, long id) {
+        return xps[node] > xp || (xps[node] == xp && ids[node] < id);
+    }
+
+    private int randomHeight() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        long bits = seed;
+        int height = 1;
+        while (height < MAX_LEVEL && (bits & 3) == 0) {
+            height++;
+            bits >>>= 2;
+        }
+        return height;
+    }
+
+    private int allocate(int height) {
+        int node = freeHead[height];
+        if (node != NIL) {
+            freeHead[height] = links[firstLink[node]];
+            return node;
+        }
+        if (nodeCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            xps = Arrays.copyOf(xps, capacity);
+            firstLink = Arrays.copyOf(firstLink, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        if (linkCount + height > links.length) {
+            int capacity = Math.max(linkCount + height, links.length + (links.length >> 1));
+            links = Arrays.copyOf(links, capacity);
+            spans = Arrays.copyOf(spans, capacity);
+        }
+        node = nodeCount++;
+        firstLink[node] = linkCount;
+        heights[node] = (byte) height;
+        linkCount += height;
+        return node;
+    }
+
+    private void release(int node) {
+        int height = heights[node];
+        links[firstLink[node]] = freeHead[height];
+        freeHead[height] = node;
+    }
+
+    private void reset() {
+        Arrays.fill(freeHead, NIL);
+        nodeCount = 0;
+        linkCount = 0;
+        size = 0;
+        level = 1;
+        int head = allocate(MAX_LEVEL);
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            links[firstLink[head] + i] = NIL;
+            spans[firstLink[head] + i] = 0;
+        }
+    }
+
+    // Open-addressing user id -> node map (no boxing); NIL marks an empty slot
+    private static final class LongIntMap {
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, NIL);
+            mask = capacity - 1;
+        }
+
+        int get(long key) {
+            for (int i = slot(key);; i = (i + 1) & mask) {
+                if (values[i] == NIL || keys[i] == key) {
+                    return values[i];
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int i = slot(key);
+            while (values[i] != NIL && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == NIL) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int gap = slot(key);
+            while (values[gap] != NIL && keys[gap] != key) {
+                gap = (gap + 1) & mask;
+            }
+            if (values[gap] == NIL) {
+                return;
+            }
+            size--;
+            // Backward shift: pull later entries of the probe run into the gap
+            for (int j = (gap + 1) & mask; values[j] != NIL; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                boolean stays = gap < j ? (home > gap && home <= j) : (home > gap || home <= j);
+                if (!stays) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            values[gap] = NIL;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(values, NIL);
+            mask = keys.length - 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != NIL) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.quizgenix.model.User;
+import com.quizgenix.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Global XP ranking served from memory (see LeaderboardIndex): rank, top N and the
+ * players around a user cost O(log n) and no query. Loaded from users at startup;
+ * after each XP change commits, the affected users are re-read and moved.
+ *
+ * Ties keep the old meaning: a user's rank is 1 + the number of users with more XP.
+ * Top lists order equal XP by user id.
+ */
+@Service
+@Lazy(false)
+public class LeaderboardService implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Not used directly: building it runs ddl-auto, which creates users on a fresh database
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final int RELOAD_CHUNK = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Serializes "read committed XP, then move": a later re-read always lands last
+    private final Object refreshLock = new Object();
+
+    private volatile LeaderboardIndex index = new LeaderboardIndex();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            System.out.println(">>> Leaderboard load skipped: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Brings the index in line with users (startup, after an XP recompute). The live index is
+    // updated in id-ordered chunks instead of building a second one next to it, so the extra
+    // memory is one long per indexed user, not a whole index; readers see the old XP of users
+    // a chunk has not reached yet
+    public int reload() {
+        synchronized (refreshLock) {
+            long start = System.currentTimeMillis();
+            long[] indexed;
+            lock.readLock().lock();
+            try {
+                indexed = index.ids();
+            } finally {
+                lock.readLock().unlock();
+            }
+            Arrays.sort(indexed);
+            if (indexed.length == 0) {
+                // First load: size the arrays once instead of growing them
+                Integer users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+                index = new LeaderboardIndex(users + users / 8);
+            }
+
+            long[] ids = new long[RELOAD_CHUNK];
+            int[] xps = new int[RELOAD_CHUNK];
+            int[] count = new int[1];
+            int next = 0; // First indexed id not yet checked against users
+            long after = Long.MIN_VALUE;
+            int loaded = 0;
+            do {
+                count[0] = 0;
+                jdbcTemplate.query("SELECT id, total_xp FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                        rs -> {
+                            ids[count[0]] = rs.getLong(1);
+                            xps[count[0]++] = rs.getInt(2);
+                        }, after, RELOAD_CHUNK);
+                boolean last = count[0] < RELOAD_CHUNK;
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < count[0]; i++) {
+                        // Indexed ids between the previous user and this one are no longer in users
+                        while (next < indexed.length && indexed[next] < ids[i]) {
+                            index.remove(indexed[next++]);
+                        }
+                        if (next < indexed.length && indexed[next] == ids[i]) {
+                            next++;
+                        }
+                        index.put(ids[i], xps[i]);
+                    }
+                    while (last && next < indexed.length) {
+                        index.remove(indexed[next++]);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                loaded += count[0];
+                if (count[0] > 0) {
+                    after = ids[count[0] - 1];
+                }
+            } while (count[0] == RELOAD_CHUNK);
+            System.out.println(">>> Leaderboard loaded: " + loaded + " users in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            return loaded;
+        }
+    }
+
+    // Re-reads these users' committed XP; inside a transaction it waits for the commit
+    public void xpChanged(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(userIds));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(ids);
+                }
+            });
+        } else {
+            refresh(ids);
+        }
+    }
+
+    public void userRemoved(Long userId) {
+        synchronized (refreshLock) {
+            lock.writeLock().lock();
+            try {
+                index.remove(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Competition rank; a user missing from the index (created elsewhere) is added on the way,
+    // with the XP stored now and under refreshLock, so it cannot undo a concurrent refresh
+    public long rank(User user) {
+        lock.readLock().lock();
+        try {
+            if (index.contains(user.getId())) {
+                return index.countAbove(index.xpOf(user.getId(), 0)) + 1;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        synchronized (refreshLock) {
+            List<Integer> stored = jdbcTemplate.queryForList("SELECT total_xp FROM users WHERE id = ?",
+                    Integer.class, user.getId());
+            lock.writeLock().lock();
+            try {
+                if (!stored.isEmpty()) {
+                    index.put(user.getId(), stored.get(0));
+                }
+                return index.countAbove(index.xpOf(user.getId(), user.getTotalXp())) + 1;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Highest XP first; the users themselves are primary-key lookups
+    public List<User> top(int n) {
+        long[] ids = new long[n];
+        int[] xps = new int[n];
+        int count;
+        lock.readLock().lock();
+        try {
+            count = index.range(0, ids, xps);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return users(ids, count);
+    }
+
+    // Up to radius players on each side of the user (more on one side at either end of the list)
+    public List<Standing> around(User user, int radius) {
+        rank(user); // Makes sure the user is indexed
+        int window = 2 * radius + 1;
+        long[] ids = new long[window];
+        int[] xps = new int[window];
+        int from;
+        int count;
+        long firstRank;
+        lock.readLock().lock();
+        try {
+            int position = Math.max(0, index.position(user.getId()));
+            from = Math.max(0, Math.min(position - radius, index.size() - window));
+            count = index.range(from, ids, xps);
+            firstRank = count > 0 ? index.countAbove(xps[0]) + 1 : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, User> byId = userRepository.findAllById(toList(ids, count)).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        List<Standing> standings = new ArrayList<>(count);
+        long rank = firstRank;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && xps[i] != xps[i - 1]) {
+                rank = from + i + 1; // Ties share a rank; the next XP starts after them
+            }
+            User player = byId.get(ids[i]);
+            if (player != null) {
+                standings.add(new Standing(rank, player, player.getId().equals(user.getId())));
+            }
+        }
+        return standings;
+    }
+
+    private void refresh(List<Long> ids) {
+        String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        synchronized (refreshLock) {
+            Map<Long, Integer> xp = new HashMap<>();
+            // Ids are Longs from our own rows, never user input
+            jdbcTemplate.query("SELECT id, total_xp FROM users WHERE id IN (" + in + ")",
+                    rs -> {
+                        xp.put(rs.getLong(1), rs.getInt(2));
+                    });
+            lock.writeLock().lock();
+            try {
+                for (Long id : ids) {
+                    Integer total = xp.get(id);
+                    if (total != null) {
+                        index.put(id, total);
+                    } else {
+                        index.remove(id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private List<User> users(long[] ids, int count) {
+        List<Long> order = toList(ids, count);
+        Map<Long, User> byId = userRepository.findAllById(order).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        List<User> users = new ArrayList<>(count);
+        for (Long id : order) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private static List<Long> toList(long[] ids, int count) {
+        List<Long> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(ids[i]);
+        }
+        return list;
+    }
+
+    public record Standing(long rank, User user, boolean me) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.quizgenix.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One OpenAI-compatible chat-completions backend (Groq, a fallback host...).
+ * Keeps its own latency window (EWMA for routing, p95 for hedging) and a
+ * cool-down after 429/5xx so the router skips it until it recovers.
+ */
+public class LlmProvider {
+
+    private static final int WINDOW = 100;
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final String name;
+    private final String url;
+    private final String apiKey;
+    private final String model;
+    private final double weight;
+
+    // Guarded by this
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private int nextSlot;
+    private double ewmaMs;
+
+    private volatile long coolDownUntil;
+
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public LlmProvider(String name, String url, String apiKey, String model, double weight) {
+        this.name = name;
+        this.url = url;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.weight = weight <= 0 ? 1.0 : weight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= coolDownUntil;
+    }
+
+    public long getCoolDownUntil() {
+        return coolDownUntil;
+    }
+
+    // Lower is better: a fast or heavily weighted provider is tried first.
+    // Providers with no samples yet score 0, so every backend gets measured.
+    public synchronized double score() {
+        return ewmaMs / weight;
+    }
+
+    public synchronized void recordSuccess(long latencyMs) {
+        successes.incrementAndGet();
+        latencies[nextSlot] = latencyMs;
+        nextSlot = (nextSlot + 1) % WINDOW;
+        samples = Math.min(samples + 1, WINDOW);
+        ewmaMs = ewmaMs == 0 ? latencyMs : EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * ewmaMs;
+    }
+
+    public void recordFailure(long coolDownMs) {
+        failures.incrementAndGet();
+        if (coolDownMs > 0) {
+            coolDownUntil = Math.max(coolDownUntil, System.currentTimeMillis() + coolDownMs);
+        }
+    }
+
+    // -1 until enough calls have been seen for the percentile to mean anything
+    public synchronized long p95LatencyMs(int minSamples) {
+        if (samples < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(samples * 0.95) - 1];
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", name);
+        data.put("model", model);
+        data.put("weight", weight);
+        synchronized (this) {
+            data.put("ewmaLatencyMs", Math.round(ewmaMs));
+            data.put("samples", samples);
+        }
+        data.put("p95LatencyMs", p95LatencyMs(1));
+        data.put("available", isAvailable());
+        data.put("successes", successes.get());
+        data.put("failures", failures.get());
+        return data;
+    }
+}
@@ -0,0 +1,341 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.quizgenix.config.AiRequestScope;
+import com.quizgenix.exception.AiBusyException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Routes each AI call across the configured providers (ai.providers).
+ *
+ * - Routing: available providers are tried fastest-first (EWMA latency / weight).
+ * - Hedging: if the first provider has not answered within its own p95, a second
+ * one is raced against it; the first to claim the result wins and the other
+ * request is cancelled.
+ * - Failover: 429 / 5xx / I/O errors put the provider on cool-down and the next
+ * one is tried, as long as nothing has been handed to the caller yet.
+ */
+@Service
+public class LlmRouter {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ThreadPoolTaskExecutor aiHedgeExecutor;
+
+    @Value("${ai.providers:groq}")
+    private String[] providerNames;
+
+    @Value("${ai.hedge.enabled:true}")
+    private boolean hedgingEnabled;
+
+    // Used until a provider has enough samples for a meaningful p95
+    @Value("${ai.hedge.initial-delay-ms:15000}")
+    private long initialHedgeDelayMs;
+
+    @Value("${ai.hedge.min-delay-ms:1000}")
+    private long minHedgeDelayMs;
+
+    @Value("${ai.hedge.min-samples:20}")
+    private int minSamples;
+
+    // Cool-down after 429/5xx when the provider sends no Retry-After
+    @Value("${ai.provider.cool-down-ms:30000}")
+    private long coolDownMs;
+
+    private List<LlmProvider> providers;
+
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    @FunctionalInterface
+    public interface LlmCall<T> {
+        T call(LlmProvider provider, Attempt<T> attempt);
+    }
+
+    @PostConstruct
+    void init() {
+        List<LlmProvider> configured = new ArrayList<>();
+        for (String raw : providerNames) {
+            String name = raw.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            // Anything not set per provider falls back to the original ai.api.* settings
+            String prefix = "ai.provider." + name + ".";
+            configured.add(new LlmProvider(name,
+                    environment.getProperty(prefix + "url", environment.getProperty("ai.api.url", "")),
+                    environment.getProperty(prefix + "key", environment.getProperty("ai.api.key", "")),
+                    environment.getProperty(prefix + "model", environment.getProperty("ai.api.model", "")),
+                    environment.getProperty(prefix + "weight", Double.class, 1.0)));
+        }
+        if (configured.isEmpty()) {
+            throw new IllegalStateException("No AI provider configured (ai.providers)");
+        }
+        providers = List.copyOf(configured);
+    }
+
+    // Distinct models of the configured providers, in configuration order (disk cache lookups try each)
+    public List<String> getModels() {
+        return providers.stream().map(LlmProvider::getModel).distinct().toList();
+    }
+
+    public <T> T execute(LlmCall<T> call) {
+        List<LlmProvider> candidates = route();
+        Race<T> race = new Race<>();
+        BlockingQueue<Attempt<T>> finished = new LinkedBlockingQueue<>();
+        RuntimeException lastError = null;
+
+        int next = 0;
+        int running = 0;
+        LlmProvider lead = candidates.get(next++);
+        launch(lead, false, call, race, finished);
+        running++;
+
+        try {
+            while (running > 0) {
+                boolean canHedge = hedgingEnabled && running == 1 && !race.hasWinner()
+                        && next < candidates.size();
+                Attempt<T> done = canHedge
+                        ? finished.poll(hedgeDelayMs(lead), TimeUnit.MILLISECONDS)
+                        : finished.take();
+
+                if (done == null) {
+                    // Slower than this provider's p95: race the next one
+                    hedgesFired.incrementAndGet();
+                    launch(candidates.get(next++), true, call, race, finished);
+                    running++;
+                    continue;
+                }
+                running--;
+
+                if (done.claimed()) {
+                    race.cancelLosers();
+                    if (done.error != null) {
+                        throw done.error; // Already streamed part of the answer: cannot replay it elsewhere
+                    }
+                    if (done.hedge) {
+                        hedgesWon.incrementAndGet();
+                    }
+                    return done.result;
+                }
+                if (done.error != null && !done.isCancelled()) {
+                    lastError = done.error;
+                }
+
+                if (running == 0 && next < candidates.size()) {
+                    failovers.incrementAndGet();
+                    lead = candidates.get(next++);
+                    launch(lead, false, call, race, finished);
+                    running++;
+                }
+            }
+        } catch (InterruptedException e) {
+            race.cancelAll();
+            Thread.currentThread().interrupt();
+            throw new AiBusyException("⚠️ AI Service is busy. Please try again.");
+        }
+
+        if (lastError == null) {
+            lastError = new RuntimeException("AI returned no answer.");
+        }
+        throw lastError;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> providerStats = new ArrayList<>();
+        for (LlmProvider provider : providers) {
+            providerStats.add(provider.getStats());
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("providers", providerStats);
+        data.put("hedgingEnabled", hedgingEnabled);
+        data.put("hedgesFired", hedgesFired.get());
+        data.put("hedgesWon", hedgesWon.get());
+        data.put("failovers", failovers.get());
+        return data;
+    }
+
+    // Available providers fastest-first; if all are cooling down, the one that recovers soonest
+    private List<LlmProvider> route() {
+        List<LlmProvider> available = new ArrayList<>();
+        for (LlmProvider provider : providers) {
+            if (provider.isAvailable()) {
+                available.add(provider);
+            }
+        }
+        if (available.isEmpty()) {
+            return List.of(providers.stream()
+                    .min(Comparator.comparingLong(LlmProvider::getCoolDownUntil))
+                    .orElseThrow());
+        }
+        available.sort(Comparator.comparingDouble(LlmProvider::score));
+        return available;
+    }
+
+    private long hedgeDelayMs(LlmProvider provider) {
+        long p95 = provider.p95LatencyMs(minSamples);
+        return Math.max(minHedgeDelayMs, p95 < 0 ? initialHedgeDelayMs : p95);
+    }
+
+    private <T> void launch(LlmProvider provider, boolean hedge, LlmCall<T> call, Race<T> race,
+            BlockingQueue<Attempt<T>> finished) {
+        Attempt<T> attempt = new Attempt<>(provider, hedge, race);
+        race.add(attempt);
+        Runnable task = () -> {
+            run(attempt, call);
+            finished.add(attempt);
+        };
+        try {
+            aiHedgeExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            task.run(); // Pool is full: run on the caller (no hedge possible for this one)
+        }
+    }
+
+    private <T> void run(Attempt<T> attempt, LlmCall<T> call) {
+        AiRequestScope scope = attempt.scope.enter();
+        try {
+            T result = call.call(attempt.provider, attempt);
+            if (attempt.claim()) {
+                attempt.result = result;
+            }
+        } catch (RuntimeException e) {
+            attempt.error = e;
+            if (!attempt.isCancelled()) {
+                attempt.provider.recordFailure(coolDownFor(e));
+            }
+        } finally {
+            scope.close();
+        }
+    }
+
+    // Only overload and availability problems bench a provider; a bad request would fail anywhere
+    private long coolDownFor(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return coolDownMs;
+        }
+        if (e instanceof HttpStatusCodeException status) {
+            if (status.getStatusCode().value() == 429) {
+                String retryAfter = status.getResponseHeaders() == null ? null
+                        : status.getResponseHeaders().getFirst("Retry-After");
+                if (retryAfter == null) {
+                    return coolDownMs;
+                }
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                } catch (NumberFormatException ignored) {
+                    return coolDownMs; // HTTP-date form
+                }
+            }
+            if (status.getStatusCode().is5xxServerError()) {
+                return coolDownMs;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * One request to one provider. Streaming callers call claim() before handing
+     * anything to the user; plain calls are claimed when they return.
+     */
+    public static final class Attempt<T> {
+        private final LlmProvider provider;
+        private final boolean hedge;
+        private final Race<T> race;
+        private final AiRequestScope scope = new AiRequestScope();
+        private final long startNanos = System.nanoTime();
+        private volatile T result;
+        private volatile RuntimeException error;
+
+        private Attempt(LlmProvider provider, boolean hedge, Race<T> race) {
+            this.provider = provider;
+            this.hedge = hedge;
+            this.race = race;
+        }
+
+        // True if this attempt is (now) the one whose answer reaches the user
+        public boolean claim() {
+            if (race.claim(this)) {
+                return true;
+            }
+            if (!scope.isCancelled()) {
+                scope.cancel();
+            }
+            return false;
+        }
+
+        // Streaming sinks: claim or stop reading this provider's stream
+        public void claimOrAbort() {
+            if (!claim()) {
+                throw new CancellationException("Another provider answered first");
+            }
+        }
+
+        private boolean claimed() {
+            return race.winner.get() == this;
+        }
+
+        // Lost the race (or the whole call was abandoned): its outcome says nothing about the provider
+        public boolean isCancelled() {
+            return scope.isCancelled();
+        }
+    }
+
+    private static final class Race<T> {
+        private final AtomicReference<Attempt<T>> winner = new AtomicReference<>();
+        private final List<Attempt<T>> attempts = new ArrayList<>();
+
+        synchronized void add(Attempt<T> attempt) {
+            attempts.add(attempt);
+        }
+
+        boolean hasWinner() {
+            return winner.get() != null;
+        }
+
+        boolean claim(Attempt<T> attempt) {
+            if (winner.compareAndSet(null, attempt)) {
+                attempt.provider.recordSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt.startNanos));
+                cancelLosers();
+                return true;
+            }
+            return winner.get() == attempt;
+        }
+
+        synchronized void cancelLosers() {
+            for (Attempt<T> attempt : attempts) {
+                if (attempt != winner.get()) {
+                    attempt.scope.cancel();
+                }
+            }
+        }
+
+        synchronized void cancelAll() {
+            attempts.forEach(attempt -> attempt.scope.cancel());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.model.Question;
+
+/**
+ * In-memory cache of generated question sets, in front of the AI call.
+ * Keyed by normalized topic + difficulty + count, so "Java Basics ", "java basics"
+ * and "JAVA basics!" share one entry. Each entry keeps a small pool of sets and
+ * serves a shuffled sample drawn from all of them.
+ */
+@Service
+public class QuestionSetCache {
+
+    @Value("${quiz.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.cache.max-entries:100}")
+    private int maxEntries;
+
+    @Value("${quiz.cache.sets-per-entry:3}")
+    private int setsPerEntry;
+
+    @Value("${quiz.cache.ttl-minutes:720}")
+    private long ttlMinutes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    // Access-ordered map = LRU; guarded by its own monitor
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Returns fresh copies of cached questions, or null on a miss
+    public List<Question> get(String topic, String difficulty, int count) {
+        if (!enabled) {
+            return null;
+        }
+
+        String key = key(topic, difficulty, count);
+        List<Question> pool;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired(ttlMinutes)) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            pool = new ArrayList<>();
+            for (List<Question> set : entry.sets) {
+                pool.addAll(set);
+            }
+        }
+
+        // Shuffled sample across every set in the pool, without repeating a question text
+        Collections.shuffle(pool, ThreadLocalRandom.current());
+        Map<String, Question> unique = new LinkedHashMap<>();
+        for (Question q : pool) {
+            unique.putIfAbsent(normalize(q.getText()), q);
+        }
+
+        List<Question> result = new ArrayList<>();
+        for (Question q : unique.values()) {
+            if (result.size() == count) {
+                break;
+            }
+            result.add(q.copy());
+        }
+
+        if (result.size() < count) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return result;
+    }
+
+    // Stores a detached copy of a freshly generated set
+    public void put(String topic, String difficulty, int count, List<Question> questions) {
+        if (!enabled || questions == null || questions.size() < count) {
+            return; // Short sets would shrink every quiz served from this entry
+        }
+
+        List<Question> snapshot = new ArrayList<>();
+        for (Question q : questions) {
+            snapshot.add(q.copy());
+        }
+
+        String key = key(topic, difficulty, count);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.isExpired(ttlMinutes)) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            entry.sets.add(snapshot);
+            if (entry.sets.size() > setsPerEntry) {
+                entry.sets.remove(0); // Oldest set leaves the pool
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("enabled", enabled);
+        synchronized (entries) {
+            data.put("entries", entries.size());
+        }
+        data.put("maxEntries", maxEntries);
+        data.put("hits", hitCount);
+        data.put("misses", missCount);
+        data.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        data.put("evictions", evictions.get());
+        data.put("expirations", expirations.get());
+        return data;
+    }
+
+    // "  Java-Basics! " + "Easy" + 10 -> "java basics|easy|10"
+    static String key(String topic, String difficulty, int count) {
+        return normalize(topic) + "|" + (difficulty == null ? "" : difficulty.toLowerCase(Locale.ROOT)) + "|" + count;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT)
+                .replaceAll("[\\p{Punct}&&[^+#]]", " ") // Keep "c++" and "c#" apart from "c"
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static class Entry {
+        private final long createdAt = System.currentTimeMillis();
+        private final List<List<Question>> sets = new ArrayList<>();
+
+        boolean isExpired(long ttlMinutes) {
+            return System.currentTimeMillis() - createdAt > ttlMinutes * 60_000L;
+        }
+    }
+}
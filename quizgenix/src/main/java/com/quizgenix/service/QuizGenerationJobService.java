@@ -0,0 +1,283 @@
+package com.quizgenix.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.quizgenix.model.Question;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.User;
+import com.quizgenix.repository.QuizRepository;
+
+@Service
+public class QuizGenerationJobService {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ThreadPoolTaskExecutor quizGenerationExecutor;
+
+    @Value("${quiz.generation.job-retention-minutes:15}")
+    private long retentionMinutes;
+
+    // Stream questions to the quiz page while the AI is still generating
+    @Value("${quiz.generation.streaming:true}")
+    private boolean streaming;
+
+    @Value("${quiz.generation.stream-timeout-ms:180000}")
+    private long streamTimeoutMs;
+
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    // Striped by user id: the monthly-limit check and the job registration happen under one lock
+    private final Object[] admissionLocks = new Object[64];
+
+    {
+        for (int i = 0; i < admissionLocks.length; i++) {
+            admissionLocks[i] = new Object();
+        }
+    }
+
+    // Queues the generation and returns immediately with the job handle
+    public GenerationJob submit(String topic, String difficulty, int count, User user, boolean forceFresh) {
+        purgeFinishedJobs();
+
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), user.getId());
+        jobs.put(job.getId(), job);
+        start(job, topic, difficulty, count, user, forceFresh);
+        return job;
+    }
+
+    // Same, unless this month's quizzes plus the user's jobs in flight already reach monthlyLimit (null then).
+    // Two requests from one user cannot both pass the check: the second one sees the first one's job.
+    public GenerationJob submit(String topic, String difficulty, int count, User user, boolean forceFresh,
+            long monthlyLimit) {
+        purgeFinishedJobs();
+
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), user.getId());
+        synchronized (admissionLocks[(int) Math.floorMod(user.getId(), (long) admissionLocks.length)]) {
+            long used = quizRepository.countQuizzesThisMonth(user) + countActiveJobs(user.getId());
+            if (used >= monthlyLimit) {
+                return null;
+            }
+            jobs.put(job.getId(), job);
+        }
+        start(job, topic, difficulty, count, user, forceFresh);
+        return job;
+    }
+
+    private void start(GenerationJob job, String topic, String difficulty, int count, User user, boolean forceFresh) {
+        try {
+            quizGenerationExecutor.execute(() -> run(job, topic, difficulty, count, user, forceFresh));
+        } catch (TaskRejectedException e) {
+            finish(job, null, Status.FAILED, "⚠️ AI Service is busy. Please try again.");
+        }
+    }
+
+    public GenerationJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    // The job still streaming questions into this quiz, if any
+    public GenerationJob findStreamingJob(Long quizId) {
+        for (GenerationJob job : jobs.values()) {
+            if (quizId.equals(job.getQuizId()) && job.getStatus() == Status.RUNNING) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    // =========================================================
+    // SSE: replay what is already generated, then push the rest live
+    // =========================================================
+    public SseEmitter subscribe(GenerationJob job) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        synchronized (job) {
+            try {
+                for (int i = 0; i < job.questions.size(); i++) {
+                    emitter.send(SseEmitter.event().name("question").data(toPayload(i, job.questions.get(i))));
+                }
+                if (job.getStatus() == Status.DONE || job.getStatus() == Status.FAILED) {
+                    emitter.send(SseEmitter.event().name(job.getStatus().name().toLowerCase()).data(toSummary(job)));
+                    emitter.complete();
+                    return emitter;
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            job.emitters.add(emitter);
+        }
+
+        emitter.onCompletion(() -> removeEmitter(job, emitter));
+        emitter.onTimeout(() -> removeEmitter(job, emitter));
+        emitter.onError(e -> removeEmitter(job, emitter));
+        return emitter;
+    }
+
+    // Jobs in flight whose quiz row is not saved yet (saved ones are already in this month's count)
+    public long countActiveJobs(Long userId) {
+        return jobs.values().stream()
+                .filter(j -> j.getUserId().equals(userId))
+                .filter(j -> j.getStatus() == Status.QUEUED || j.getStatus() == Status.RUNNING)
+                .filter(j -> j.getQuizId() == null)
+                .count();
+    }
+
+    // Explanation of a streamed question, asked for by the quiz page once the answer is shown
+    public String getExplanation(GenerationJob job, int index) {
+        synchronized (job) {
+            return index >= 0 && index < job.questions.size() ? job.questions.get(index).getExplanation() : null;
+        }
+    }
+
+    private void run(GenerationJob job, String topic, String difficulty, int count, User user,
+            boolean forceFresh) {
+        job.status = Status.RUNNING;
+        try {
+            Quiz quiz;
+            if (streaming) {
+                quiz = quizService.createQuizStreaming(topic, difficulty, count, user, forceFresh,
+                        started -> job.quizId = started.getId(),
+                        question -> publish(job, question));
+            } else {
+                quiz = quizService.createQuiz(topic, difficulty, count, user, forceFresh);
+            }
+            finish(job, quiz.getId(), Status.DONE, null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            finish(job, null, Status.FAILED, "⚠️ AI Service is busy. Please try again.");
+        }
+    }
+
+    private void publish(GenerationJob job, Question question) {
+        synchronized (job) {
+            int index = job.questions.size();
+            job.questions.add(question);
+            for (SseEmitter emitter : new ArrayList<>(job.emitters)) {
+                try {
+                    emitter.send(SseEmitter.event().name("question").data(toPayload(index, question)));
+                } catch (IOException e) {
+                    job.emitters.remove(emitter); // Browser went away
+                }
+            }
+        }
+    }
+
+    private void finish(GenerationJob job, Long quizId, Status status, String error) {
+        synchronized (job) {
+            job.quizId = quizId;
+            job.error = error;
+            job.finishedAt = LocalDateTime.now();
+            job.status = status;
+
+            for (SseEmitter emitter : job.emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(status.name().toLowerCase()).data(toSummary(job)));
+                    emitter.complete();
+                } catch (IOException ignored) {
+                }
+            }
+            job.emitters.clear();
+        }
+    }
+
+    private void removeEmitter(GenerationJob job, SseEmitter emitter) {
+        synchronized (job) {
+            job.emitters.remove(emitter);
+        }
+    }
+
+    private Map<String, Object> toPayload(int index, Question question) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("index", index);
+        data.put("text", question.getText());
+        data.put("options", question.getOptions());
+        data.put("correctIndex", question.getCorrectAnswerIndex());
+        // No explanation: the page fetches it after the answer is revealed (getExplanation)
+        return data;
+    }
+
+    private Map<String, Object> toSummary(GenerationJob job) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("quizId", job.getQuizId());
+        data.put("total", job.questions.size());
+        data.put("error", job.getError());
+        return data;
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    // Snapshot of one background generation, polled by the waiting page
+    public static class GenerationJob {
+        private final String id;
+        private final Long userId;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile Long quizId;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        // Guarded by the job's monitor
+        private final List<Question> questions = new ArrayList<>();
+        private final List<SseEmitter> emitters = new ArrayList<>();
+
+        GenerationJob(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public LocalDateTime getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getQuizId() {
+            return quizId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+    }
+}
@@ -2,21 +2,20 @@ package com.quizgenix.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.quizgenix.model.Question;
 import com.quizgenix.model.Quiz;
 import com.quizgenix.model.User;
 import com.quizgenix.repository.QuizRepository;
-import com.quizgenix.repository.UserRepository;
+import com.quizgenix.service.AnswerKeyCache.AnswerKey;
 
 @Service
 public class QuizService {
@@ -28,111 +27,189 @@ public class QuizService {
     private QuizRepository quizRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private QuestionSetCache questionSetCache;
 
-    public Quiz createQuiz(String topic, String difficulty, int count, User user) {
-        List<Question> questions = aiService.generateQuestions(topic, difficulty, count);
-        Quiz quiz = new Quiz();
-        quiz.setTopic(topic);
-        quiz.setDifficulty(difficulty);
-        quiz.setTotalQuestions(count);
-        quiz.setCreatedAt(LocalDateTime.now());
-        quiz.setUser(user);
+    @Autowired
+    private GenerationCoalescer generationCoalescer;
 
-        for (Question q : questions) {
-            q.setQuiz(quiz);
-        }
-        quiz.setQuestions(questions);
-        return quizRepository.save(quiz);
-    }
+    @Autowired
+    private WarmPoolService warmPoolService;
 
-    public Quiz getQuizById(Long id) {
-        Quiz quiz = quizRepository.findById(Objects.requireNonNull(id, "ID cannot be null"))
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
+    @Autowired
+    private CanonicalQuestionService canonicalQuestionService;
 
-        // 🟢 PRE-CLEANUP: Remove duplicates immediately when fetching
-        Set<Question> uniqueQs = new LinkedHashSet<>(quiz.getQuestions());
-        quiz.setQuestions(new ArrayList<>(uniqueQs));
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
 
-        return quiz;
-    }
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
 
-    @Transactional
-    public int calculateScore(Long quizId, Map<String, String> allParams) {
-        Quiz quiz = getQuizById(quizId);
+    @Autowired
+    private UserStatsService userStatsService;
 
-        // 🟢 FIX 1: Ensure we iterate over unique questions only
-        Set<Question> uniqueQuestions = new LinkedHashSet<>(quiz.getQuestions());
-        List<Question> questions = new ArrayList<>(uniqueQuestions);
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-        int correctAnswers = 0;
+    public Quiz createQuiz(String topic, String difficulty, int count, User user) {
+        return createQuiz(topic, difficulty, count, user, false);
+    }
 
-        for (int i = 0; i < questions.size(); i++) {
-            Question q = questions.get(i);
+    // forceFresh skips the question-set cache and always asks the AI
+    public Quiz createQuiz(String topic, String difficulty, int count, User user, boolean forceFresh) {
+        List<Question> questions = fetchQuestions(topic, difficulty, count, forceFresh);
+        Quiz quiz = newQuiz(topic, difficulty, count, user);
+        quiz.setTotalQuestions(questions.size()); // Chunked generation may come back short
 
-            // Get user input (from hidden fields answer_0, answer_1...)
-            String userSelectedText = allParams.get("answer_" + i);
+        attachQuestions(quiz, questions);
+        quiz = insertQuiz(quiz);
+        answerKeyCache.put(quiz);
+        return quiz;
+    }
 
-            // A. Normalize and Save User Answer
-            if (userSelectedText != null) {
-                userSelectedText = userSelectedText.trim();
-                q.setUserAnswer(userSelectedText);
+    // Streaming variant: the Quiz row is saved before the first question arrives
+    // so the quiz page can open while the AI is still writing the rest.
+    public Quiz createQuizStreaming(String topic, String difficulty, int count, User user, boolean forceFresh,
+            Consumer<Quiz> onStarted, Consumer<Question> onQuestion) {
+        Quiz quiz = newQuiz(topic, difficulty, count, user);
+        quiz.setQuestions(new ArrayList<>());
+        quiz = insertQuiz(quiz);
+        onStarted.accept(quiz);
+
+        try {
+            List<Question> questions = readyMadeQuestions(topic, difficulty, count, forceFresh);
+            if (questions != null) {
+                questions.forEach(onQuestion); // Pool/cache hit: the whole set is ready at once
             } else {
-                q.setUserAnswer("");
+                boolean[] streamedHere = { false };
+                questions = generationCoalescer.execute(topic, difficulty, count, () -> {
+                    streamedHere[0] = true;
+                    List<Question> generated = aiService.streamQuestions(topic, difficulty, count, onQuestion);
+                    questionSetCache.put(topic, difficulty, count, generated);
+                    return generated;
+                });
+                if (!streamedHere[0]) {
+                    questions.forEach(onQuestion); // Joined someone else's identical request
+                }
             }
+            attachQuestions(quiz, questions);
+            quiz.setTotalQuestions(questions.size()); // The AI may return fewer than asked
+            quiz = quizRepository.save(quiz);
+            answerKeyCache.put(quiz);
+            return quiz;
+        } catch (RuntimeException e) {
+            // Don't leave an empty quiz behind in the user's history
+            Quiz failed = quiz;
+            transactionTemplate.executeWithoutResult(status -> {
+                quizRepository.delete(failed);
+                userStatsService.quizRemoved(failed.getUser() != null ? failed.getUser().getId() : null);
+            });
+            throw e;
+        }
+    }
 
-            // B. Resolve the "Correct Text" from the DB "Correct Letter"
-            String dbAnswerRaw = q.getCorrectAnswer(); // e.g., "A"
-            String actualCorrectText = dbAnswerRaw; // Default fallback
-
-            int correctIndex = q.getCorrectAnswerIndex(); // 0 for A, 1 for B...
-            if (correctIndex != -1 && q.getOptions() != null && correctIndex < q.getOptions().size()) {
-                // If DB says "A", grab options.get(0) -> "Java is a language"
-                actualCorrectText = q.getOptions().get(correctIndex);
-            }
+    // The quiz row and its owner's dashboard stats change together
+    private Quiz insertQuiz(Quiz quiz) {
+        return transactionTemplate.execute(status -> {
+            Quiz saved = quizRepository.saveAndFlush(quiz);
+            userStatsService.quizCreated(saved);
+            return saved;
+        });
+    }
 
-            // C. Compare (Case Insensitive)
-            // We compare: User's Text VS Actual Correct Text
-            if (!q.getUserAnswer().isEmpty() && actualCorrectText != null) {
-                if (q.getUserAnswer().equalsIgnoreCase(actualCorrectText.trim())) {
-                    correctAnswers++;
-                }
-            }
+    // Serves a pre-generated or cached set when possible, otherwise pays for a live AI call
+    private List<Question> fetchQuestions(String topic, String difficulty, int count, boolean forceFresh) {
+        List<Question> ready = readyMadeQuestions(topic, difficulty, count, forceFresh);
+        if (ready != null) {
+            return ready;
         }
+        // Identical requests already in flight share one AI call
+        return generationCoalescer.execute(topic, difficulty, count, () -> {
+            List<Question> generated = aiService.generateQuestions(topic, difficulty, count);
+            questionSetCache.put(topic, difficulty, count, generated);
+            return generated;
+        });
+    }
 
-        // 2. Calculate Percentage
-        int percentage = 0;
-        if (questions.size() > 0) {
-            percentage = (int) Math.round(((double) correctAnswers / questions.size()) * 100);
+    // 1. Warm pool (never served before, so fine even for "fresh" requests)
+    // 2. Question-set cache (skipped when the user asked for a fresh set)
+    // 3. On-disk answer cache (survives restarts; also skipped for fresh sets)
+    private List<Question> readyMadeQuestions(String topic, String difficulty, int count, boolean forceFresh) {
+        List<Question> pooled = warmPoolService.take(topic, difficulty, count);
+        if (pooled != null) {
+            questionSetCache.put(topic, difficulty, count, pooled);
+            return pooled;
+        }
+        if (forceFresh) {
+            return null;
+        }
+        List<Question> cached = questionSetCache.get(topic, difficulty, count);
+        if (cached != null) {
+            return cached;
         }
+        List<Question> stored = aiService.cachedQuestions(topic, difficulty, count);
+        if (stored != null) {
+            questionSetCache.put(topic, difficulty, count, stored);
+        }
+        return stored;
+    }
 
-        // 🟢 FIX 2: Safety Cap (Never exceed 100%)
-        if (percentage > 100)
-            percentage = 100;
-        if (correctAnswers > questions.size())
-            correctAnswers = questions.size();
-
-        quiz.setScore(percentage);
-
-        // 3. XP Calculation
-        int xpPerQuestion = 1;
-        if ("Medium".equalsIgnoreCase(quiz.getDifficulty()))
-            xpPerQuestion = 2;
-        if ("Hard".equalsIgnoreCase(quiz.getDifficulty()))
-            xpPerQuestion = 3;
-        if ("Expert".equalsIgnoreCase(quiz.getDifficulty()))
-            xpPerQuestion = 5;
-
-        int xpEarned = correctAnswers * xpPerQuestion;
-
-        if (xpEarned > 0) {
-            User user = quiz.getUser();
-            user.setTotalXp(user.getTotalXp() + xpEarned);
-            userRepository.save(user);
+    // Links each question to its shared canonical content; only the slim per-quiz rows are new
+    private void attachQuestions(Quiz quiz, List<Question> questions) {
+        canonicalQuestionService.link(questions);
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            q.setQuiz(quiz);
+            q.setPosition(i);
         }
+        quiz.setQuestions(questions);
+    }
 
-        quizRepository.save(quiz);
+    private Quiz newQuiz(String topic, String difficulty, int count, User user) {
+        Quiz quiz = new Quiz();
+        quiz.setTopic(topic);
+        quiz.setDifficulty(difficulty);
+        quiz.setTotalQuestions(count);
+        quiz.setCreatedAt(LocalDateTime.now());
+        quiz.setUser(user);
+        return quiz;
+    }
+
+    // Quiz, its questions and their content in one statement (quiz page, review, result)
+    public Quiz getQuizById(Long id) {
+        return quizRepository.findWithQuestionsById(Objects.requireNonNull(id, "ID cannot be null"))
+                .orElseThrow(() -> new RuntimeException("Quiz not found"));
+    }
+
+    // Scores against the cached answer key (no quiz loading). Answers, score and XP are
+    // saved by the SubmissionPipeline: durable on return, in the database shortly after
+    public ScoreResult scoreQuiz(Long quizId, Map<String, String> allParams) {
+        AnswerKey key = answerKey(Objects.requireNonNull(quizId, "ID cannot be null"));
+
+        String[] answers = new String[key.size()];
+        int correctAnswers = key.score(allParams, answers);
+        int total = key.size();
+
+        // Never exceeds 100%: every question counts at most once
+        int percentage = total > 0 ? (int) Math.round(((double) correctAnswers / total) * 100) : 0;
+
+        // XP: 1 per correct answer (Easy), 2 (Medium), 3 (Hard), 5 (Expert)
+        int xpEarned = correctAnswers * key.getXpPerCorrect();
+
+        submissionPipeline.submit(quizId, key.getOwnerId(), percentage, xpEarned, key.getQuestionIds(), answers);
+        return new ScoreResult(percentage, correctAnswers, total, key.getDifficulty(), xpEarned);
+    }
+
+    private AnswerKey answerKey(Long quizId) {
+        AnswerKey key = answerKeyCache.get(quizId);
+        if (key == null) {
+            // Created before the last restart (or evicted): one load, then cached
+            Quiz quiz = getQuizById(quizId);
+            answerKeyCache.put(quiz);
+            key = answerKeyCache.get(quizId);
+        }
+        return key;
+    }
 
-        return percentage;
+    public record ScoreResult(int score, int correctAnswers, int totalQuestions, String difficulty, int xpEarned) {
     }
-}
\ No newline at end of file
+}
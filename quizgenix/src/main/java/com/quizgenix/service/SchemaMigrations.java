@@ -0,0 +1,140 @@
+package com.quizgenix.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Versioned schema changes that ddl-auto=update cannot make (indexes it does not
+ * know about, data fixes), from classpath:db/migration/V<n>__<description>.sql.
+ *
+ * Runs once the entity tables exist (ddl-auto first, so it also works on an empty
+ * database) and before the web server starts. Each version is applied once, in
+ * order, and recorded in schema_migrations with its checksum; a failing migration,
+ * or an applied one whose file was edited afterwards, stops the startup, like a
+ * failing ddl would.
+ */
+@Component
+@Lazy(false)
+public class SchemaMigrations implements SmartInitializingSingleton {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Not used directly: building it runs ddl-auto, which creates the tables migrations alter
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                + "version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "applied_at DATETIME NOT NULL)");
+
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_migrations",
+                rs -> {
+                    applied.put(rs.getInt("version"), rs.getLong("checksum"));
+                });
+
+        Resource[] scripts;
+        try {
+            scripts = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list schema migrations", e);
+        }
+        Arrays.sort(scripts, Comparator.comparingInt(SchemaMigrations::version));
+
+        for (Resource script : scripts) {
+            int version = version(script);
+            String sql = read(script);
+            long checksum = checksum(sql);
+            Long recorded = applied.get(version);
+            if (recorded != null) {
+                if (recorded != checksum) {
+                    // The schema no longer matches the scripts: add a new version instead of editing
+                    throw new IllegalStateException("Schema migration " + script.getFilename()
+                            + " changed after it was applied (checksum " + recorded + ", now " + checksum + ")");
+                }
+                continue;
+            }
+            apply(version, description(script), sql, checksum);
+        }
+    }
+
+    private void apply(int version, String description, String sql, long checksum) {
+        long start = System.currentTimeMillis();
+        // MySQL commits DDL implicitly, so statements run one by one rather than in a transaction
+        for (String statement : sql.split(";\\s*(\\r?\\n|$)")) {
+            String trimmed = stripComments(statement);
+            if (!trimmed.isEmpty()) {
+                jdbcTemplate.execute(trimmed);
+            }
+        }
+        jdbcTemplate.update("INSERT INTO schema_migrations (version, description, checksum, applied_at) "
+                + "VALUES (?, ?, ?, NOW())", version, description, checksum);
+        System.out.println(">>> Schema migration V" + version + " (" + description + ") applied in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static int version(Resource script) {
+        return Integer.parseInt(match(script).group(1));
+    }
+
+    private static String description(Resource script) {
+        return match(script).group(2).replace('_', ' ');
+    }
+
+    private static Matcher match(Resource script) {
+        Matcher m = FILE_NAME.matcher(script.getFilename());
+        if (!m.matches()) {
+            throw new IllegalStateException("Bad migration file name: " + script.getFilename());
+        }
+        return m;
+    }
+
+    private static String read(Resource script) {
+        try {
+            return StreamUtils.copyToString(script.getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + script.getFilename(), e);
+        }
+    }
+
+    private static String stripComments(String statement) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : statement.split("\\r?\\n")) {
+            if (!line.trim().startsWith("--")) {
+                sql.append(line).append('\n');
+            }
+        }
+        return sql.toString().trim();
+    }
+
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,107 @@
+package com.quizgenix.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quizgenix.model.Question;
+
+/**
+ * Incremental parser for the JSON array the AI streams back.
+ * Text is fed in arbitrary chunks; each question is handed to the callback
+ * as soon as its closing brace arrives. Markdown fences or prose before the
+ * array are skipped, and a malformed element is dropped instead of failing
+ * the whole quiz.
+ */
+class StreamingQuestionParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<Question> onQuestion;
+    private final List<Question> questions = new ArrayList<>();
+
+    private final StringBuilder element = new StringBuilder();
+    private boolean sawOpenBracket; // '[' seen, waiting to confirm it starts an array of objects
+    private boolean inArray;
+    private boolean finished;
+    private int depth; // brace depth inside the current element (0 = between elements)
+    private boolean inString;
+    private boolean escaped;
+
+    StreamingQuestionParser(ObjectMapper objectMapper, Consumer<Question> onQuestion) {
+        this.objectMapper = objectMapper;
+        this.onQuestion = onQuestion;
+    }
+
+    void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && !finished; i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    List<Question> getQuestions() {
+        return questions;
+    }
+
+    private void accept(char c) {
+        if (!inArray) {
+            if (sawOpenBracket && Character.isWhitespace(c)) {
+                return;
+            }
+            if (sawOpenBracket && c == '{') {
+                inArray = true; // fall through: this brace opens the first element
+            } else {
+                // "[" followed by anything but an object was just prose (e.g. "[10 questions]")
+                sawOpenBracket = (c == '[');
+                return;
+            }
+        }
+
+        if (depth == 0) {
+            if (c == '{') {
+                element.setLength(0);
+                element.append(c);
+                depth = 1;
+            } else if (c == ']') {
+                finished = true;
+            }
+            return;
+        }
+
+        element.append(c);
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+            }
+            return;
+        }
+
+        if (c == '"') {
+            inString = true;
+        } else if (c == '{') {
+            depth++;
+        } else if (c == '}') {
+            depth--;
+            if (depth == 0) {
+                emit();
+            }
+        }
+    }
+
+    private void emit() {
+        Question question;
+        try {
+            question = objectMapper.readValue(element.toString(), Question.class);
+        } catch (Exception e) {
+            System.out.println(">>> Skipping malformed question from AI stream: " + e.getMessage());
+            return;
+        }
+        questions.add(question);
+        onQuestion.accept(question); // Callback failures (e.g. a lost hedge race) abort the stream
+    }
+}
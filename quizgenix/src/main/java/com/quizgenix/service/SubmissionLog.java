@@ -0,0 +1,314 @@
+package com.quizgenix.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.quizgenix.service.SubmissionPipeline.Submission;
+
+/**
+ * Write-ahead file of acknowledged quiz submissions that are not yet in the database.
+ *
+ * Record layout: magic | payloadLen | crc32(payload) | payload. A record cut short
+ * or failing its checksum (crash mid-write) ends the log and is cut off on open.
+ * sync() is a group commit: one fsync covers every record appended before it, so a
+ * burst of submissions shares a handful of fsyncs.
+ *
+ * The log is a series of segment files. Once the segment being written reaches
+ * wal-segment-mb it is closed and a new one started, and committed() deletes every
+ * closed segment the database has caught up with, so the log stays bounded even
+ * when the queue is never empty. The directory also holds the log's id, which keys
+ * its checkpoint row: two instances (or two volumes) never share a checkpoint.
+ */
+@Component
+public class SubmissionLog {
+
+    private static final int MAGIC = 0x51475331; // "QGS1"
+    private static final int HEADER_BYTES = 4 + 4 + 4;
+    private static final long MB = 1024 * 1024;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("submissions-(\\d+)\\.wal");
+    private static final String ID_FILE = "log.id";
+
+    @Value("${quiz.submissions.wal-dir:data/submissions}")
+    private String directory;
+
+    // Off trades crash durability (OS buffers only) for latency
+    @Value("${quiz.submissions.fsync:true}")
+    private boolean fsync;
+
+    @Value("${quiz.submissions.wal-segment-mb:16}")
+    private int segmentMb;
+
+    private String id;
+
+    // Guarded by this. Offsets count bytes appended across all segments since open
+    private Path dir;
+    private final Deque<Segment> closed = new ArrayDeque<>(); // Oldest first
+    private Path segmentFile;
+    private long segmentNumber;
+    private long segmentStart;
+    private long segmentLastSequence; // 0 while the open segment is empty
+    private FileChannel channel;
+    private long written;
+
+    // Guarded by syncLock (taken before this, never after)
+    private final Object syncLock = new Object();
+    private long synced;
+    private long fsyncs;
+
+    // Opens the log and returns the submissions still in it, in append order
+    synchronized List<Submission> open() throws IOException {
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        id = readOrCreateId();
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(dir)) {
+            list.filter(f -> SEGMENT_FILE.matcher(f.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(SubmissionLog::segmentNumber))
+                    .forEach(files::add);
+        }
+
+        List<Submission> submissions = new ArrayList<>();
+        long next = 0;
+        for (Path file : files) {
+            long lastSequence = read(file, submissions);
+            closed.addLast(new Segment(file, lastSequence));
+            written += Files.size(file);
+            next = Math.max(next, segmentNumber(file) + 1);
+        }
+        synced = written;
+        startSegment(next);
+        return submissions;
+    }
+
+    // Identifies this log (and so its checkpoint row) for as long as the directory lives
+    String getId() {
+        return id;
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // Returns the log offset after this record; pass it to sync() before acknowledging
+    synchronized long append(Submission submission) throws IOException {
+        byte[] payload = encode(submission);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(MAGIC).putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+        long position = written - segmentStart;
+        while (record.hasRemaining()) {
+            channel.write(record, position + record.position());
+        }
+        written += record.limit();
+        segmentLastSequence = submission.sequence();
+        return written;
+    }
+
+    // Returns once everything up to the given offset is on disk
+    void sync(long upTo) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= upTo) {
+                return; // Covered by the fsync of a thread that got here first
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = written;
+                current = channel; // Only replaced under syncLock, so not closed under us
+            }
+            current.force(false);
+            synced = target;
+            fsyncs++;
+        }
+    }
+
+    // The database has every submission up to this sequence: drop what only they needed
+    void committed(long sequence) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                while (!closed.isEmpty() && closed.peekFirst().lastSequence() <= sequence) {
+                    Files.deleteIfExists(closed.removeFirst().file());
+                }
+                if (segmentLastSequence <= sequence) {
+                    // All of the open segment is committed: reuse it from zero bytes
+                    if (written > segmentStart) {
+                        channel.truncate(0);
+                        segmentStart = written;
+                    }
+                    synced = written;
+                } else if (written - segmentStart >= segmentMb * MB) {
+                    rotate();
+                }
+            }
+        }
+    }
+
+    // Everything in the log is committed (startup replay done)
+    void reset() throws IOException {
+        committed(Long.MAX_VALUE);
+    }
+
+    synchronized long size() {
+        return written;
+    }
+
+    synchronized int segments() {
+        return closed.size() + 1;
+    }
+
+    long getFsyncs() {
+        synchronized (syncLock) {
+            return fsyncs;
+        }
+    }
+
+    // Caller holds syncLock and this
+    private void rotate() throws IOException {
+        if (fsync) {
+            channel.force(false);
+            fsyncs++;
+        }
+        channel.close();
+        synced = written;
+        closed.addLast(new Segment(segmentFile, segmentLastSequence));
+        startSegment(segmentNumber + 1);
+    }
+
+    private void startSegment(long number) throws IOException {
+        segmentNumber = number;
+        segmentFile = dir.resolve(String.format("submissions-%010d.wal", number));
+        channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentStart = written;
+        segmentLastSequence = 0;
+    }
+
+    // Adds the file's records to submissions and returns the last sequence read (0 if none)
+    private static long read(Path file, List<Submission> submissions) throws IOException {
+        long lastSequence = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            long position = 0;
+            long size = in.size();
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                in.read(header, position);
+                header.flip();
+                int magic = header.getInt();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (magic != MAGIC || length <= 0 || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                in.read(payload, position + HEADER_BYTES);
+                if (crc != crc(payload.array())) {
+                    break;
+                }
+                Submission submission = decode(payload.array());
+                submissions.add(submission);
+                lastSequence = submission.sequence();
+                position += HEADER_BYTES + length;
+            }
+            if (position < size) {
+                System.out.println(">>> Submission log: dropped " + (size - position) + " bytes of a partial record in "
+                        + file.getFileName());
+                in.truncate(position);
+            }
+        }
+        return lastSequence;
+    }
+
+    private String readOrCreateId() throws IOException {
+        Path idFile = dir.resolve(ID_FILE);
+        if (Files.exists(idFile)) {
+            return Files.readString(idFile, StandardCharsets.UTF_8).trim();
+        }
+        String newId = UUID.randomUUID().toString();
+        Path tmp = dir.resolve(ID_FILE + ".tmp");
+        Files.writeString(tmp, newId, StandardCharsets.UTF_8);
+        Files.move(tmp, idFile, StandardCopyOption.ATOMIC_MOVE);
+        return newId;
+    }
+
+    private static long segmentNumber(Path file) {
+        Matcher m = SEGMENT_FILE.matcher(file.getFileName().toString());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a segment file: " + file);
+        }
+        return Long.parseLong(m.group(1));
+    }
+
+    private static byte[] encode(Submission s) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + s.questionIds().length * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(s.sequence());
+        out.writeLong(s.quizId());
+        out.writeLong(s.ownerId() != null ? s.ownerId() : -1);
+        out.writeInt(s.score());
+        out.writeInt(s.xp());
+        out.writeInt(s.questionIds().length);
+        for (int i = 0; i < s.questionIds().length; i++) {
+            out.writeLong(s.questionIds()[i]);
+            out.writeUTF(s.answers()[i]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Submission decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        long quizId = in.readLong();
+        long ownerId = in.readLong();
+        int score = in.readInt();
+        int xp = in.readInt();
+        int count = in.readInt();
+        long[] questionIds = new long[count];
+        String[] answers = new String[count];
+        for (int i = 0; i < count; i++) {
+            questionIds[i] = in.readLong();
+            answers[i] = in.readUTF();
+        }
+        return new Submission(sequence, quizId, ownerId >= 0 ? ownerId : null, score, xp, questionIds, answers);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record Segment(Path file, long lastSequence) {
+    }
+}
@@ -0,0 +1,475 @@
+package com.quizgenix.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.quizgenix.exception.SubmissionBusyException;
+import com.quizgenix.service.UserStatsService.ScoreChange;
+import com.quizgenix.service.XpService.XpAward;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Write-behind persistence of scored submissions. The request thread only appends
+ * the result to the SubmissionLog (fsync shared with concurrent submitters) and
+ * queues it; one writer thread saves answers, scores, XP and dashboard stats for up
+ * to batch-size submissions per transaction, in submission order, and records the
+ * last sequence it committed (one checkpoint row per log). On startup, logged submissions
+ * past that sequence are replayed before the web server accepts requests, so an
+ * acknowledged result survives a crash; if the database stays unreachable for
+ * replay-timeout-ms, the startup fails instead.
+ *
+ * A submission is queued only once its fsync succeeded, and always in sequence order;
+ * if the log cannot take it, it is saved on the request thread instead, together with
+ * a skip row for its sequence, so a replay never saves it a second time.
+ *
+ * The queue is bounded: when it is full, submitters wait up to enqueue-timeout-ms
+ * and then get a SubmissionBusyException instead of piling up more work.
+ */
+@Service
+@Lazy(false)
+public class SubmissionPipeline implements SmartInitializingSingleton {
+
+    private static final int MAX_ANSWER_LENGTH = 255; // question.user_answer is a VARCHAR(255)
+
+    @Autowired
+    private SubmissionLog submissionLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private XpService xpService;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Not used directly: building it runs ddl-auto, which creates submission_log_checkpoint
+    // and submission_log_skip
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Off: every submission is saved on the request thread, without the log
+    @Value("${quiz.submissions.write-behind:true}")
+    private boolean writeBehind;
+
+    @Value("${quiz.submissions.queue-capacity:5000}")
+    private int queueCapacity;
+
+    @Value("${quiz.submissions.batch-size:200}")
+    private int batchSize;
+
+    @Value("${quiz.submissions.enqueue-timeout-ms:10000}")
+    private long enqueueTimeoutMs;
+
+    // Review pages wait this long for the quiz's own submission to be saved
+    @Value("${quiz.submissions.read-wait-ms:2000}")
+    private long readWaitMs;
+
+    // Startup replay waits this long for the database before failing the startup
+    @Value("${quiz.submissions.replay-timeout-ms:60000}")
+    private long replayTimeoutMs;
+
+    private BlockingQueue<Submission> queue;
+    private Semaphore slots; // Free queue places; released once a submission is committed
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Sequences: assigned under appendLock in log order; committed is a prefix of them
+    private final Object appendLock = new Object();
+    private long lastSequence;
+    private volatile long committedSequence;
+
+    // Sequences whose fsync has returned, waiting for the ones before them; null: saved directly
+    private final Object queueLock = new Object();
+    private final Map<Long, Submission> settled = new HashMap<>();
+    private long nextToQueue;
+    private long lastAcknowledged;
+
+    // Quiz -> sequence of its latest submission not yet committed
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    // Quiz owner -> sequence of their latest submission not yet committed
+    private final Map<Long, Long> pendingByOwner = new ConcurrentHashMap<>();
+
+    private long committed;
+    private long batches;
+    private long dropped;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!writeBehind) {
+            return;
+        }
+
+        try {
+            List<Submission> logged = submissionLog.open();
+            long checkpoint = checkpoint();
+            Set<Long> skipped = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT log_sequence FROM submission_log_skip WHERE log_id = ? AND log_sequence > ?",
+                    Long.class, submissionLog.getId(), checkpoint));
+            lastSequence = checkpoint;
+            List<Submission> replay = new ArrayList<>();
+            for (Submission s : logged) {
+                lastSequence = Math.max(lastSequence, s.sequence());
+                if (s.sequence() > checkpoint && !skipped.contains(s.sequence())) {
+                    replay.add(s);
+                }
+            }
+            long giveUpAt = System.currentTimeMillis() + replayTimeoutMs;
+            for (int from = 0; from < replay.size(); from += batchSize) {
+                write(replay.subList(from, Math.min(from + batchSize, replay.size())), giveUpAt);
+            }
+            committedSequence = lastSequence;
+            lastAcknowledged = lastSequence;
+            nextToQueue = lastSequence + 1;
+            submissionLog.reset();
+            // The log is empty now: no replay can reach these sequences any more
+            jdbcTemplate.update("DELETE FROM submission_log_skip WHERE log_id = ?", submissionLog.getId());
+            if (!replay.isEmpty()) {
+                System.out.println(">>> Submission log: replayed " + replay.size() + " acknowledged submissions");
+            }
+        } catch (IOException e) {
+            // Without the log an acknowledgement would not be durable: save synchronously instead
+            System.out.println(">>> Submission write-behind disabled: " + e.getMessage());
+            writeBehind = false;
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        slots = new Semaphore(queueCapacity);
+        running = true;
+        writer = new Thread(this::drain, "submission-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30)); // Drains the queue first
+        submissionLog.close();
+        System.out.println(">>> Submission pipeline stopped: " + committed + " submissions in " + batches
+                + " batches, " + submissionLog.getFsyncs() + " log fsyncs, " + dropped + " dropped");
+    }
+
+    // Durable once this returns: in the log (write-behind) or in the database
+    public void submit(Long quizId, Long ownerId, int score, int xp, long[] questionIds, String[] answers) {
+        for (int i = 0; i < answers.length; i++) {
+            if (answers[i].length() > MAX_ANSWER_LENGTH) {
+                answers[i] = answers[i].substring(0, MAX_ANSWER_LENGTH);
+            }
+        }
+        if (!writeBehind) {
+            persist(List.of(new Submission(0, quizId, ownerId, score, xp, questionIds, answers)), false);
+            return;
+        }
+        if (!running) {
+            throw new SubmissionBusyException("The server is shutting down.");
+        }
+
+        try {
+            if (!slots.tryAcquire(enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SubmissionBusyException("Too many submissions are being saved right now.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SubmissionBusyException("Interrupted while waiting to save the submission.");
+        }
+
+        Submission submission;
+        long logSize = -1;
+        synchronized (appendLock) {
+            submission = new Submission(++lastSequence, quizId, ownerId, score, xp, questionIds, answers);
+            try {
+                logSize = submissionLog.append(submission);
+                pending.put(quizId, submission.sequence());
+                if (ownerId != null) {
+                    pendingByOwner.put(ownerId, submission.sequence());
+                }
+            } catch (IOException e) {
+                System.out.println(">>> Submission log write failed, saving directly: " + e.getMessage());
+            }
+        }
+        if (logSize >= 0) {
+            try {
+                submissionLog.sync(logSize);
+                settle(submission.sequence(), submission);
+                return;
+            } catch (IOException e) {
+                pending.remove(quizId, submission.sequence());
+                if (ownerId != null) {
+                    pendingByOwner.remove(ownerId, submission.sequence());
+                }
+                System.out.println(">>> Submission log fsync failed, saving directly: " + e.getMessage());
+            }
+        }
+        // Not queued, so saved here. Queued submissions with lower sequences are not committed
+        // yet, so the checkpoint cannot move past it: persist() records its sequence as skipped
+        // instead, in case the record reached the disk after all
+        settle(submission.sequence(), null);
+        persist(List.of(submission), false);
+    }
+
+    // Queues settled submissions in sequence order, so the committed sequences stay a prefix
+    private void settle(long sequence, Submission submission) {
+        synchronized (queueLock) {
+            settled.put(sequence, submission);
+            if (submission != null) {
+                lastAcknowledged = Math.max(lastAcknowledged, sequence);
+            }
+            while (settled.containsKey(nextToQueue)) {
+                Submission next = settled.remove(nextToQueue++);
+                if (next != null) {
+                    queue.add(next); // Cannot fail: every queued submission holds one of the slots
+                } else {
+                    slots.release();
+                }
+            }
+        }
+    }
+
+    // Lets a page that reads answers or scores see a submission that was just acknowledged
+    public void awaitPersisted(Long quizId) {
+        Long sequence = pending.get(quizId);
+        if (sequence == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + readWaitMs;
+        synchronized (this) {
+            while (committedSequence < sequence) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Blocks until every submission acknowledged so far is committed (tests, shutdown hooks)
+    public void flush(long timeoutMs) throws InterruptedException {
+        long target;
+        synchronized (queueLock) {
+            target = lastAcknowledged;
+        }
+        awaitCommitted(target, timeoutMs);
+    }
+
+    // Blocks until every submission of this owner acknowledged so far is committed, without
+    // waiting for the ones queued after it (account deletion)
+    public void flush(Long ownerId, long timeoutMs) throws InterruptedException {
+        Long target = pendingByOwner.get(ownerId);
+        if (target != null) {
+            awaitCommitted(target, timeoutMs);
+        }
+    }
+
+    private void awaitCommitted(long target, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (this) {
+            while (committedSequence < target && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!write(batch, Long.MAX_VALUE)) {
+                    return; // Shutting down with the database unreachable: the log keeps the rest
+                }
+                slots.release(batch.size());
+                markCommitted(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                System.out.println(">>> Submission log cleanup failed: " + e.getMessage());
+                batch.clear();
+            }
+        }
+    }
+
+    private void markCommitted(List<Submission> batch) throws IOException {
+        Submission last = batch.get(batch.size() - 1);
+        for (Submission s : batch) {
+            pending.remove(s.quizId(), s.sequence());
+            if (s.ownerId() != null) {
+                pendingByOwner.remove(s.ownerId(), s.sequence());
+            }
+        }
+        synchronized (this) {
+            committedSequence = last.sequence();
+            notifyAll();
+        }
+        submissionLog.committed(last.sequence());
+    }
+
+    // This log's checkpoint row, created on its first start
+    private long checkpoint() {
+        jdbcTemplate.update("INSERT IGNORE INTO submission_log_checkpoint (log_id, last_sequence) VALUES (?, 0)",
+                submissionLog.getId());
+        return jdbcTemplate.queryForObject("SELECT last_sequence FROM submission_log_checkpoint WHERE log_id = ?",
+                Long.class, submissionLog.getId());
+    }
+
+    // False only when shutting down while the database is unreachable. giveUpAt bounds the
+    // retries of the startup replay: past it the startup fails rather than hanging
+    private boolean write(List<Submission> batch, long giveUpAt) {
+        long backoffMs = 100;
+        while (true) {
+            try {
+                persist(batch, true);
+                committed += batch.size();
+                batches++;
+                return true;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    writeOneByOne(batch);
+                    return true;
+                }
+                if (!running && writer != null) {
+                    return false;
+                }
+                if (System.currentTimeMillis() >= giveUpAt) {
+                    throw new IllegalStateException("Could not replay the submission log: database unavailable for "
+                            + replayTimeoutMs + " ms", e);
+                }
+                System.out.println(">>> Submission batch of " + batch.size() + " failed, retrying in " + backoffMs
+                        + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoffMs = Math.min(backoffMs * 2, 5000);
+            }
+        }
+    }
+
+    // A bad row (e.g. a deleted quiz) must not hold up the rest of its batch
+    private void writeOneByOne(List<Submission> batch) {
+        for (Submission s : batch) {
+            try {
+                persist(List.of(s), true);
+                committed++;
+            } catch (RuntimeException e) {
+                dropped++;
+                System.out.println(">>> Submission " + s.sequence() + " for quiz " + s.quizId() + " dropped: "
+                        + e.getMessage());
+            }
+        }
+        batches++;
+    }
+
+    // One transaction; later submissions of a quiz win, rows are updated in id order.
+    // checkpoint: the batch is the next stretch of the log. Otherwise a logged submission
+    // (sequence > 0) is being saved out of order, and its sequence is marked skipped
+    private void persist(List<Submission> batch, boolean checkpoint) {
+        Map<Long, String> answers = new TreeMap<>();
+        Map<Long, Integer> scores = new TreeMap<>();
+        List<XpAward> awards = new ArrayList<>();
+        for (Submission s : batch) {
+            for (int i = 0; i < s.questionIds().length; i++) {
+                answers.put(s.questionIds()[i], s.answers()[i]);
+            }
+            scores.put(s.quizId(), s.score());
+            awards.add(new XpAward(s.ownerId(), s.quizId(), s.xp()));
+        }
+        long lastInBatch = batch.get(batch.size() - 1).sequence();
+
+        // Ids are Longs from the answer keys, never user input
+        String quizIds = scores.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Stored scores, locked until commit: what each new score changes in the owner's stats
+            List<ScoreChange> changes = new ArrayList<>(scores.size());
+            jdbcTemplate.query("SELECT id, user_id, topic, score FROM quiz WHERE id IN (" + quizIds + ") FOR UPDATE",
+                    rs -> {
+                        int delta = scores.get(rs.getLong("id")) - rs.getInt("score");
+                        changes.add(new ScoreChange(rs.getObject("user_id", Long.class), rs.getString("topic"), delta));
+                    });
+            jdbcTemplate.batchUpdate("UPDATE question SET user_answer = ? WHERE id = ?",
+                    new ArrayList<>(answers.entrySet()), answers.size(),
+                    (ps, answer) -> {
+                        ps.setString(1, answer.getValue());
+                        ps.setLong(2, answer.getKey());
+                    });
+            jdbcTemplate.batchUpdate("UPDATE quiz SET score = ? WHERE id = ?",
+                    new ArrayList<>(scores.entrySet()), scores.size(),
+                    (ps, score) -> {
+                        ps.setInt(1, score.getValue());
+                        ps.setLong(2, score.getKey());
+                    });
+            xpService.award(awards);
+            userStatsService.scoresChanged(changes);
+            if (checkpoint) {
+                jdbcTemplate.update("UPDATE submission_log_checkpoint SET last_sequence = ? "
+                        + "WHERE log_id = ? AND last_sequence < ?", lastInBatch, submissionLog.getId(), lastInBatch);
+            } else if (lastInBatch > 0) {
+                jdbcTemplate.update("INSERT INTO submission_log_skip (log_id, log_sequence) VALUES (?, ?)",
+                        submissionLog.getId(), lastInBatch);
+            }
+        });
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    // Answers are the trimmed text of the chosen option, in question order
+    record Submission(long sequence, Long quizId, Long ownerId, int score, int xp, long[] questionIds,
+            String[] answers) {
+    }
+}
@@ -2,6 +2,7 @@ package com.quizgenix.service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects; // Import Objects
 import java.util.UUID;
 
@@ -27,6 +28,12 @@ public class UserService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private GenerationRateLimiter generationRateLimiter;
+
     private static final long EXPIRE_TOKEN_AFTER_MINUTES = 30;
 
     public void register(User user, String siteURL) throws Exception {
@@ -49,6 +56,7 @@ public class UserService {
         user.setPlanExpiryDate(null);
 
         userRepository.save(user);
+        leaderboardService.xpChanged(List.of(user.getId())); // Ranked from the start, with 0 XP
 
         if (!user.isEnabled()) {
             emailService.sendVerificationEmail(user, siteURL);
@@ -117,6 +125,7 @@ public class UserService {
             user.setCurrentPlanPrice(0.0);
             user.setPlanExpiryDate(null);
             user.setPlanStartDate(null);
+            generationRateLimiter.reset(user); // Back to the free bucket size
             return userRepository.save(user);
         }
         return user;
@@ -0,0 +1,188 @@
+package com.quizgenix.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.UserStats;
+import com.quizgenix.repository.UserStatsRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Maintains the user_stats read model (and user_topic_stats behind its best topic).
+ * Every change is an atomic upsert or increment in the caller's transaction, next to
+ * the quiz insert or score update it reflects, so concurrent requests never lose a count.
+ *
+ * rebuild() recomputes everything from the quiz table in one transaction; its
+ * INSERT ... SELECT share-locks the quiz rows, so quizzes created or scored meanwhile
+ * wait for it and are counted exactly once. It also runs on startup while user_stats is empty.
+ */
+@Service
+@Lazy(false)
+public class UserStatsService implements SmartInitializingSingleton {
+
+    // Highest average score wins; more quizzes break ties
+    private static final String BEST_TOPIC = "(SELECT t.topic FROM user_topic_stats t WHERE t.user_id = s.user_id "
+            + "ORDER BY t.score_sum / t.quiz_count DESC, t.quiz_count DESC LIMIT 1)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    // Not used directly: building it runs ddl-auto, which creates the stats tables
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // One primary-key lookup; a user without quizzes gets an empty row
+    public UserStats get(Long userId) {
+        return userStatsRepository.findById(userId).orElseGet(() -> {
+            UserStats empty = new UserStats();
+            empty.setUserId(userId);
+            return empty;
+        });
+    }
+
+    @Transactional
+    public void quizCreated(Quiz quiz) {
+        if (quiz.getUser() == null) {
+            return;
+        }
+        Long userId = quiz.getUser().getId();
+        String id = String.valueOf(quiz.getId());
+        int month = UserStats.monthKey(YearMonth.from(quiz.getCreatedAt()));
+        // Assignments run left to right: month_count still sees the old month_key
+        jdbcTemplate.update("INSERT INTO user_stats (user_id, quiz_count, score_sum, month_key, month_count, recent_quiz_ids) "
+                + "VALUES (?, 1, ?, ?, 1, ?) ON DUPLICATE KEY UPDATE "
+                + "quiz_count = quiz_count + 1, "
+                + "score_sum = score_sum + VALUES(score_sum), "
+                + "month_count = IF(month_key = VALUES(month_key), month_count + 1, 1), "
+                + "month_key = VALUES(month_key), "
+                + "recent_quiz_ids = IF(recent_quiz_ids = '', VALUES(recent_quiz_ids), "
+                + "SUBSTRING_INDEX(CONCAT(VALUES(recent_quiz_ids), ',', recent_quiz_ids), ',', ?))",
+                userId, quiz.getScore(), month, id, UserStats.RECENT_QUIZZES);
+        jdbcTemplate.update("INSERT INTO user_topic_stats (user_id, topic, quiz_count, score_sum) VALUES (?, ?, 1, ?) "
+                + "ON DUPLICATE KEY UPDATE quiz_count = quiz_count + 1, score_sum = score_sum + VALUES(score_sum)",
+                userId, topic(quiz.getTopic()), quiz.getScore());
+        refreshBestTopics(List.of(userId));
+    }
+
+    // Score changes of submitted quizzes (new score minus the stored one), any number of users
+    @Transactional
+    public void scoresChanged(List<ScoreChange> changes) {
+        Map<Long, Long> perUser = new TreeMap<>();
+        Map<String, ScoreChange> perTopic = new TreeMap<>();
+        for (ScoreChange change : changes) {
+            if (change.userId() == null || change.delta() == 0) {
+                continue;
+            }
+            perUser.merge(change.userId(), (long) change.delta(), Long::sum);
+            perTopic.merge(change.userId() + "|" + topic(change.topic()), change,
+                    (a, b) -> new ScoreChange(a.userId(), a.topic(), a.delta() + b.delta()));
+        }
+        if (perUser.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE user_stats SET score_sum = score_sum + ? WHERE user_id = ?",
+                new ArrayList<>(perUser.entrySet()), perUser.size(),
+                (ps, user) -> {
+                    ps.setLong(1, user.getValue());
+                    ps.setLong(2, user.getKey());
+                });
+        jdbcTemplate.batchUpdate("UPDATE user_topic_stats SET score_sum = score_sum + ? WHERE user_id = ? AND topic = ?",
+                new ArrayList<>(perTopic.values()), perTopic.size(),
+                (ps, change) -> {
+                    ps.setLong(1, change.delta());
+                    ps.setLong(2, change.userId());
+                    ps.setString(3, topic(change.topic()));
+                });
+        refreshBestTopics(perUser.keySet());
+    }
+
+    // Rare (a streamed quiz whose generation failed): recount the user's rows exactly
+    @Transactional
+    public void quizRemoved(Long userId) {
+        if (userId != null) {
+            rebuild("WHERE user_id = " + userId, "WHERE s.user_id = " + userId);
+        }
+    }
+
+    @Transactional
+    public void forget(Long userId) {
+        jdbcTemplate.update("DELETE FROM user_topic_stats WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_stats WHERE user_id = ?", userId);
+    }
+
+    // Full recomputation from the quiz table (admin command, startup backfill)
+    @Transactional
+    public int rebuild() {
+        return rebuild("", "");
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_stats", Integer.class);
+            Integer quizzes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quiz WHERE user_id IS NOT NULL",
+                    Integer.class);
+            if (rows == 0 && quizzes > 0) {
+                System.out.println(">>> User stats backfilled for " + rebuild() + " users");
+            }
+        } catch (DataAccessException e) {
+            System.out.println(">>> User stats backfill skipped: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // userFilter scopes the quiz scan and the deletes; statsFilter scopes the best-topic pass.
+    // Both are built here from numeric ids only.
+    private int rebuild(String userFilter, String statsFilter) {
+        String quizFilter = userFilter.isEmpty() ? "WHERE user_id IS NOT NULL" : userFilter;
+        LocalDateTime monthStart = LocalDateTime.now().withDayOfMonth(1).with(LocalTime.MIN);
+
+        jdbcTemplate.update("DELETE FROM user_topic_stats " + userFilter);
+        jdbcTemplate.update("DELETE FROM user_stats " + userFilter);
+        jdbcTemplate.update("INSERT INTO user_topic_stats (user_id, topic, quiz_count, score_sum) "
+                + "SELECT user_id, COALESCE(topic, ''), COUNT(*), SUM(score) FROM quiz " + quizFilter
+                + " GROUP BY user_id, COALESCE(topic, '')");
+        int users = jdbcTemplate.update("INSERT INTO user_stats "
+                + "(user_id, quiz_count, score_sum, month_key, month_count, recent_quiz_ids) "
+                + "SELECT user_id, COUNT(*), SUM(score), ?, SUM(created_at >= ?), "
+                + "SUBSTRING_INDEX(GROUP_CONCAT(id ORDER BY created_at DESC, id DESC), ',', ?) "
+                + "FROM quiz " + quizFilter + " GROUP BY user_id",
+                UserStats.monthKey(YearMonth.now()), Timestamp.valueOf(monthStart), UserStats.RECENT_QUIZZES);
+        jdbcTemplate.update("UPDATE user_stats s SET best_topic = " + BEST_TOPIC + " " + statsFilter);
+        return users;
+    }
+
+    private void refreshBestTopics(Collection<Long> userIds) {
+        // Ids are Longs from our own rows, never user input
+        String in = new TreeSet<>(userIds).stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.update("UPDATE user_stats s SET best_topic = " + BEST_TOPIC + " WHERE s.user_id IN (" + in + ")");
+    }
+
+    private static String topic(String topic) {
+        return topic != null ? topic : "";
+    }
+
+    public record ScoreChange(Long userId, String topic, int delta) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.quizgenix.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.quizgenix.model.Question;
+import com.quizgenix.repository.QuizRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stock of ready-made, never-served question sets for trending topics.
+ * Refilled off-peak from the most requested (topic, difficulty, count) combos,
+ * so popular quizzes open without waiting on the AI during the day.
+ *
+ * The schedule only starts a run; the run itself (blocking AI calls) goes on a
+ * thread of its own, one call per step, each step scheduled min-refill-interval-ms
+ * after the previous one, so Spring's shared scheduler thread is never held.
+ */
+@Service
+@Lazy(false) // spring.main.lazy-initialization would otherwise delay the refill schedule
+public class WarmPoolService {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private AiService aiService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor quizGenerationExecutor;
+
+    @Value("${quiz.warm-pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.warm-pool.trending-topics:20}")
+    private int trendingTopics;
+
+    @Value("${quiz.warm-pool.trending-window-days:14}")
+    private int trendingWindowDays;
+
+    @Value("${quiz.warm-pool.depth-per-topic:2}")
+    private int depthPerTopic;
+
+    // Total questions held in memory across every topic
+    @Value("${quiz.warm-pool.max-questions:600}")
+    private int maxQuestions;
+
+    // Refill-rate limit: AI calls per scheduled run, and minimum gap between them
+    @Value("${quiz.warm-pool.max-refills-per-run:5}")
+    private int maxRefillsPerRun;
+
+    @Value("${quiz.warm-pool.min-refill-interval-ms:20000}")
+    private long minRefillIntervalMs;
+
+    // Server-local hours [start, end) when refills may run
+    @Value("${quiz.warm-pool.off-peak-start-hour:1}")
+    private int offPeakStartHour;
+
+    @Value("${quiz.warm-pool.off-peak-end-hour:6}")
+    private int offPeakEndHour;
+
+    // Guarded by its own monitor
+    private final Map<String, Deque<List<Question>>> pool = new HashMap<>();
+    private int storedQuestions = 0;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong empty = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private volatile LocalDateTime lastRefillRun;
+
+    private final ScheduledThreadPoolExecutor refillExecutor = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "warm-pool-refill");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    // Takes a ready-made set out of the pool, or returns null if none is stocked
+    public List<Question> take(String topic, String difficulty, int count) {
+        if (!enabled) {
+            return null;
+        }
+        String key = QuestionSetCache.key(topic, difficulty, count);
+        synchronized (pool) {
+            Deque<List<Question>> sets = pool.get(key);
+            if (sets == null || sets.isEmpty()) {
+                empty.incrementAndGet();
+                return null;
+            }
+            List<Question> set = sets.pollFirst();
+            storedQuestions -= set.size();
+            served.incrementAndGet();
+            return set;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.warm-pool.refill-delay-ms:600000}",
+            initialDelayString = "${quiz.warm-pool.refill-delay-ms:600000}")
+    public void refill() {
+        if (!enabled || !isOffPeak() || !refilling.compareAndSet(false, true)) {
+            return; // A run that is still pacing its calls covers this one
+        }
+        try {
+            refillExecutor.execute(this::startRun);
+        } catch (RuntimeException e) {
+            refilling.set(false); // Shutting down
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        refillExecutor.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        synchronized (pool) {
+            Map<String, Integer> depths = new HashMap<>();
+            pool.forEach((key, sets) -> depths.put(key, sets.size()));
+            data.put("topics", depths);
+            data.put("storedQuestions", storedQuestions);
+        }
+        data.put("enabled", enabled);
+        data.put("maxQuestions", maxQuestions);
+        data.put("served", served.get());
+        data.put("empty", empty.get());
+        data.put("refills", refills.get());
+        data.put("lastRefillRun", lastRefillRun);
+        return data;
+    }
+
+    private boolean needsStock(String topic, String difficulty, int count) {
+        String key = QuestionSetCache.key(topic, difficulty, count);
+        synchronized (pool) {
+            Deque<List<Question>> sets = pool.get(key);
+            int depth = sets == null ? 0 : sets.size();
+            return depth < depthPerTopic && storedQuestions + count <= maxQuestions;
+        }
+    }
+
+    private void offer(String topic, String difficulty, int count, List<Question> set) {
+        List<Question> snapshot = new ArrayList<>(count);
+        for (Question q : set.subList(0, count)) {
+            snapshot.add(q.copy());
+        }
+
+        String key = QuestionSetCache.key(topic, difficulty, count);
+        synchronized (pool) {
+            if (storedQuestions + snapshot.size() > maxQuestions) {
+                return;
+            }
+            pool.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(snapshot);
+            storedQuestions += snapshot.size();
+        }
+        refills.incrementAndGet();
+    }
+
+    private boolean isOffPeak() {
+        int hour = LocalTime.now().getHour();
+        if (offPeakStartHour <= offPeakEndHour) {
+            return hour >= offPeakStartHour && hour < offPeakEndHour;
+        }
+        // Window wraps past midnight (e.g. 22 - 5)
+        return hour >= offPeakStartHour || hour < offPeakEndHour;
+    }
+
+    private void startRun() {
+        try {
+            lastRefillRun = LocalDateTime.now();
+            LocalDateTime since = LocalDateTime.now().minusDays(trendingWindowDays);
+            List<Object[]> trending = quizRepository.findTrendingTopics(since, PageRequest.of(0, trendingTopics));
+            step(new ArrayDeque<>(trending), 0);
+        } catch (RuntimeException e) {
+            System.out.println(">>> Warm pool refill failed: " + e.getMessage());
+            refilling.set(false);
+        }
+    }
+
+    // One AI call, then the next step is scheduled rather than slept for
+    private void step(Deque<Object[]> todo, int callsThisRun) {
+        boolean scheduled = false;
+        try {
+            while (!todo.isEmpty() && !needsStock(todo.peekFirst())) {
+                todo.pollFirst();
+            }
+            // Live generations always win the API quota
+            if (todo.isEmpty() || callsThisRun >= maxRefillsPerRun || quizGenerationExecutor.getActiveCount() > 0) {
+                return;
+            }
+            Object[] row = todo.peekFirst();
+            String topic = (String) row[0];
+            String difficulty = (String) row[1];
+            int count = ((Number) row[2]).intValue();
+            try {
+                List<Question> set = aiService.generateQuestions(topic, difficulty, count);
+                if (set.size() >= count) {
+                    offer(topic, difficulty, count, set);
+                }
+            } catch (RuntimeException e) {
+                System.out.println(">>> Warm pool refill failed for '" + topic + "': " + e.getMessage());
+                return; // Likely quota/rate limit: try again next run
+            }
+            refillExecutor.schedule(() -> step(todo, callsThisRun + 1), minRefillIntervalMs, TimeUnit.MILLISECONDS);
+            scheduled = true;
+        } catch (RuntimeException e) {
+            System.out.println(">>> Warm pool refill stopped: " + e.getMessage());
+        } finally {
+            if (!scheduled) {
+                refilling.set(false);
+            }
+        }
+    }
+
+    private boolean needsStock(Object[] row) {
+        return needsStock((String) row[0], (String) row[1], ((Number) row[2]).intValue());
+    }
+}
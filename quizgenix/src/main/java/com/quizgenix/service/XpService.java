@@ -0,0 +1,106 @@
+package com.quizgenix.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.quizgenix.model.XpLedgerEntry;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * XP accrual. Each award is one in-place increment of users.total_xp plus one
+ * xp_ledger row, in the caller's transaction: concurrent submissions never
+ * overwrite each other, and the ledger can rebuild any total.
+ * User saves elsewhere (profile, plans, admin) leave total_xp alone, see User.
+ */
+@Service
+@Lazy(false)
+public class XpService implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    // Not used directly: building it runs ddl-auto, which creates xp_ledger
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // One increment per user (in id order, so concurrent callers
+    // lock rows in the same order) and one ledger row per award, each as a JDBC batch
+    @Transactional
+    public void award(List<XpAward> awards) {
+        Map<Long, Integer> perUser = new TreeMap<>();
+        List<XpAward> entries = new ArrayList<>(awards.size());
+        for (XpAward award : awards) {
+            if (award.userId() != null && award.amount() != 0) {
+                perUser.merge(award.userId(), award.amount(), Integer::sum);
+                entries.add(award);
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE users SET total_xp = total_xp + ? WHERE id = ?",
+                new ArrayList<>(perUser.entrySet()), perUser.size(),
+                (ps, user) -> {
+                    ps.setInt(1, user.getValue());
+                    ps.setLong(2, user.getKey());
+                });
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO xp_ledger (user_id, quiz_id, amount, reason, created_at) VALUES (?, ?, ?, ?, ?)",
+                entries, entries.size(),
+                (ps, award) -> {
+                    ps.setLong(1, award.userId());
+                    ps.setObject(2, award.quizId());
+                    ps.setInt(3, award.amount());
+                    ps.setString(4, XpLedgerEntry.QUIZ);
+                    ps.setTimestamp(5, now);
+                });
+        leaderboardService.xpChanged(perUser.keySet()); // After the commit
+    }
+
+    // Sets every total back to the sum of its ledger rows; returns how many were off
+    @Transactional
+    public int recomputeTotals() {
+        int corrected = jdbcTemplate.update("UPDATE users u "
+                + "LEFT JOIN (SELECT user_id, SUM(amount) AS xp FROM xp_ledger GROUP BY user_id) l ON l.user_id = u.id "
+                + "SET u.total_xp = COALESCE(l.xp, 0) "
+                + "WHERE u.total_xp <> COALESCE(l.xp, 0)");
+        System.out.println(">>> XP recompute: corrected " + corrected + " users");
+        return corrected;
+    }
+
+    // XP earned before the ledger existed becomes one opening entry per user, so
+    // recomputeTotals() keeps it. Does nothing for users that already have entries.
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            int opened = jdbcTemplate.update("INSERT INTO xp_ledger (user_id, quiz_id, amount, reason, created_at) "
+                    + "SELECT u.id, NULL, u.total_xp, ?, ? FROM users u "
+                    + "WHERE u.total_xp <> 0 AND NOT EXISTS (SELECT 1 FROM xp_ledger l WHERE l.user_id = u.id)",
+                    XpLedgerEntry.OPENING_BALANCE, LocalDateTime.now());
+            if (opened > 0) {
+                System.out.println(">>> XP ledger: opening balances written for " + opened + " users");
+            }
+        } catch (DataAccessException e) {
+            System.out.println(">>> XP ledger opening balances skipped: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    public record XpAward(Long userId, Long quizId, int amount) {
+    }
+}
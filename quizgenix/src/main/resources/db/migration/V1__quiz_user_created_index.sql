@@ -0,0 +1,3 @@
+-- Per-user time windows (monthly quota, history pages, recent quizzes) become range scans;
+-- score is included so per-user counts and averages never touch the table rows
+CREATE INDEX idx_quiz_user_created ON quiz (user_id, created_at, score);
@@ -0,0 +1,2 @@
+-- Topic filter on the history page (distinct topics per user)
+CREATE INDEX idx_quiz_user_topic ON quiz (user_id, topic);
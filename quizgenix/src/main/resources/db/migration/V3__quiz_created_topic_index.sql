@@ -0,0 +1,2 @@
+-- Trending topics for the warm pool: recent rows only, grouped without reading the table
+CREATE INDEX idx_quiz_created_topic ON quiz (created_at, topic, difficulty, total_questions);
@@ -0,0 +1,2 @@
+-- Ledger rows of deleted accounts are kept with user_id cleared; ddl-auto does not relax NOT NULL
+ALTER TABLE xp_ledger MODIFY user_id BIGINT NULL;
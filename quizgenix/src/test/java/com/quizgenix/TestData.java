@@ -0,0 +1,49 @@
+package com.quizgenix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.quizgenix.model.Question;
+import com.quizgenix.model.User;
+
+/**
+ * Users and questions for the database tests. Nothing is saved here: each test
+ * saves (and later deletes) what it builds through its own repositories.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    // An enabled USER account; the password is never used (tests sign in with SecurityMockMvc)
+    public static User user(String firstName, String lastName, String email) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setPassword("TestUser#123");
+        user.setRole("USER");
+        user.setEnabled(true);
+        return user;
+    }
+
+    // e.g. "xp-race-81726354@quizgenix.test": unique per call, so tests never collide
+    public static String uniqueEmail(String prefix) {
+        return prefix + "-" + System.nanoTime() + "@quizgenix.test";
+    }
+
+    // "<prefix> question i?" with "Right i" as option A, the correct answer
+    public static List<Question> questions(String prefix, int count) {
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Question question = new Question();
+            question.setText(prefix + " question " + i + "?");
+            question.setOptions(List.of("Right " + i, "Wrong B", "Wrong C", "Wrong D"));
+            question.setCorrectAnswer("A");
+            question.setExplanation("Test question.");
+            question.setPosition(i);
+            questions.add(question);
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,141 @@
+package com.quizgenix.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.Question;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.User;
+import com.quizgenix.repository.QuizRepository;
+import com.quizgenix.repository.UserRepository;
+import com.quizgenix.service.AnswerKeyCache;
+import com.quizgenix.service.CanonicalQuestionService;
+import com.quizgenix.service.SubmissionPipeline;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * SQL statements per quiz endpoint, counted by Hibernate statistics.
+ * A lazy collection or an N+1 on questions would push these far past the budget.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "quiz.warm-pool.enabled=false"
+})
+@AutoConfigureMockMvc
+class QuizQueryCountTest {
+
+    private static final int QUESTIONS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private CanonicalQuestionService canonicalQuestionService;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    private User owner;
+    private Quiz quiz;
+
+    @BeforeEach
+    void createQuiz() {
+        String tag = String.valueOf(System.nanoTime());
+        owner = userRepository.save(TestData.user("Query", "Count", TestData.uniqueEmail("query-count")));
+
+        List<Question> questions = TestData.questions("Query count " + tag, QUESTIONS);
+        canonicalQuestionService.link(questions);
+
+        quiz = new Quiz();
+        quiz.setTopic("Query count " + tag);
+        quiz.setDifficulty("Medium");
+        quiz.setTotalQuestions(QUESTIONS);
+        quiz.setCreatedAt(LocalDateTime.now());
+        quiz.setUser(owner);
+        questions.forEach(q -> q.setQuiz(quiz));
+        quiz.setQuestions(questions);
+        quiz = quizRepository.save(quiz);
+        answerKeyCache.put(quiz); // As QuizService does on creation
+    }
+
+    @AfterEach
+    void deleteQuiz() throws InterruptedException {
+        submissionPipeline.flush(10_000);
+        answerKeyCache.remove(quiz.getId());
+        quizRepository.deleteById(quiz.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    // Owner lookup + quiz with questions and content
+    @Test
+    void quizPage() throws Exception {
+        assertStatements(2, get("/quiz/" + quiz.getId()).with(user(owner.getEmail()).roles("USER")));
+    }
+
+    @Test
+    void reviewPage() throws Exception {
+        assertStatements(2, get("/quiz/review/" + quiz.getId()).with(user(owner.getEmail()).roles("USER")));
+    }
+
+    @Test
+    void pdfExport() throws Exception {
+        assertStatements(2, get("/quiz/download-pdf/" + quiz.getId()).with(user(owner.getEmail()).roles("USER")));
+    }
+
+    // Scored from the answer key and handed to the write-behind pipeline: no SQL on the request
+    @Test
+    void submitAndScore() throws Exception {
+        var request = post("/quiz/submit")
+                .with(user(owner.getEmail()).roles("USER"))
+                .with(csrf())
+                .param("quizId", String.valueOf(quiz.getId()));
+        for (int i = 0; i < QUESTIONS; i++) {
+            request.param("answer_" + i, "Right " + i);
+        }
+        assertStatements(0, request);
+    }
+
+    private void assertStatements(int budget, RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= budget, "Expected at most " + budget + " SQL statements but saw " + statements
+                + " (entity loads: " + statistics.getEntityLoadCount()
+                + ", collection loads: " + statistics.getCollectionLoadCount() + ")");
+    }
+}
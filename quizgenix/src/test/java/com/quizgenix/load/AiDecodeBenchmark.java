@@ -0,0 +1,145 @@
+package com.quizgenix.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quizgenix.model.Question;
+import com.quizgenix.service.AiResponseDecoder;
+
+/**
+ * Decoding one chat-completion body into questions: the tree-model path AiService used
+ * to take (whole body into a Map, casts down to message.content, regex fence strip,
+ * second parse) against AiResponseDecoder's single streaming pass. No network in either.
+ * Each response size is reported as time and bytes allocated (this thread) per decode.
+ *
+ * Run with: mvn test -Dtest=AiDecodeBenchmark -Ddecode.bench=true [-Dbench.counts=10,50,100 -Dbench.seconds=5]
+ */
+@EnabledIfSystemProperty(named = "decode.bench", matches = "true")
+class AiDecodeBenchmark {
+
+    private final int[] questionCounts = Arrays.stream(System.getProperty("bench.counts", "10,50,100").split(","))
+            .mapToInt(c -> Integer.parseInt(c.trim())).toArray();
+    private final long seconds = Long.getLong("bench.seconds", 5);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static volatile int sink;
+
+    @Test
+    void compareDecoding() throws IOException {
+        AiResponseDecoder decoder = new AiResponseDecoder();
+        ReflectionTestUtils.setField(decoder, "objectMapper", objectMapper);
+
+        System.out.println(">>> ===== AI response decode benchmark =====");
+        for (int questionCount : questionCounts) {
+            byte[] body = buildResponse(questionCount);
+
+            List<Question> expected = treeDecode(body);
+            List<Question> decoded = decoder.decodeQuestions(new ByteArrayInputStream(body)).questions();
+            assertEquals(questionCount, expected.size());
+            assertEquals(expected.size(), decoded.size());
+            assertEquals(expected.get(questionCount - 1).getText(), decoded.get(questionCount - 1).getText());
+
+            // Each gets a warmup run of the same length first, so both are measured JIT-compiled
+            measure(() -> sink = treeDecode(body).size());
+            Result tree = measure(() -> sink = treeDecode(body).size());
+            measure(() -> sink = streamDecode(decoder, body));
+            Result streaming = measure(() -> sink = streamDecode(decoder, body));
+
+            System.out.printf(">>> %d questions (%d bytes): tree model %.0f ns/op, %d B/op; "
+                    + "streaming decoder %.0f ns/op, %d B/op (%.1fx faster, %.1fx less allocated)%n",
+                    questionCount, body.length, tree.nanos(), tree.bytes(), streaming.nanos(), streaming.bytes(),
+                    tree.nanos() / streaming.nanos(), (double) tree.bytes() / streaming.bytes());
+        }
+    }
+
+    private Result measure(Runnable op) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long ops = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                op.run();
+            }
+            ops += 100;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Result((double) elapsed / ops, allocated / ops);
+    }
+
+    private record Result(double nanos, long bytes) {
+    }
+
+    private static int streamDecode(AiResponseDecoder decoder, byte[] body) {
+        try {
+            return decoder.decodeQuestions(new ByteArrayInputStream(body)).questions().size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The decode as it was before AiResponseDecoder (minus the HTTP exchange)
+    @SuppressWarnings("unchecked")
+    private List<Question> treeDecode(byte[] body) {
+        try {
+            Map<String, Object> response = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {
+            });
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
+            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
+            String jsonString = (String) message.get("content");
+
+            jsonString = jsonString.replaceAll("```json", "").replaceAll("```", "").trim();
+
+            return objectMapper.readValue(jsonString, new TypeReference<List<Question>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A realistic body: fenced JSON array in message.content, plus the usual metadata and usage
+    private byte[] buildResponse(int questionCount) throws IOException {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            items.add(Map.of(
+                    "text", "Benchmark question " + i + ": which of these describes \"item " + i + "\" best?",
+                    "options", List.of("Wrong A " + i, "Right answer " + i, "Wrong C " + i, "Wrong D " + i),
+                    "correctAnswer", "B",
+                    "explanation", "Option B is right because of reason " + i
+                            + ", which the other three options leave out."));
+        }
+        String content = "```json\n" + objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(items)
+                + "\n```";
+        Map<String, Object> response = Map.of(
+                "id", "chatcmpl-bench",
+                "object", "chat.completion",
+                "model", "bench-model",
+                "choices", List.of(Map.of(
+                        "index", 0,
+                        "message", Map.of("role", "assistant", "content", content),
+                        "finish_reason", "stop")),
+                "usage", Map.of("prompt_tokens", 180, "completion_tokens", 95 * questionCount,
+                        "total_tokens", 180 + 95 * questionCount));
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,242 @@
+package com.quizgenix.load;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.User;
+import com.quizgenix.repository.UserRepository;
+import com.quizgenix.service.AccountDeletionService;
+import com.quizgenix.service.QuizGenerationJobService;
+import com.quizgenix.service.QuizGenerationJobService.GenerationJob;
+import com.quizgenix.service.QuizGenerationJobService.Status;
+
+/**
+ * Open-loop load test of the generation path (QuizController -> job -> QuizService -> AiService)
+ * against {@link StubLlmServer}, so no real Groq quota is used.
+ *
+ * Run with: mvn test -Dtest=GenerationLoadTest -Dload.test=true [-Dload.rps=10 -Dload.duration-seconds=60 ...]
+ * Latency is measured from the POST until the background job is DONE or FAILED.
+ */
+@SpringBootTest(properties = {
+        "quiz.warm-pool.enabled=false",
+        "quiz.cache.enabled=false",
+        "ratelimit.paid.per-minute=100000",
+        "ratelimit.paid.burst=100000",
+        "ratelimit.global.per-minute=100000",
+        "ratelimit.global.burst=100000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+class GenerationLoadTest {
+
+    private static final StubLlmServer STUB = StubLlmServer.start()
+            .latency(Long.getLong("stub.median-ms", 800), Long.getLong("stub.p99-ms", 4000))
+            .streaming(Integer.getInteger("stub.chunk-chars", 24), Long.getLong("stub.chunk-delay-ms", 15))
+            .malformedRate(Double.parseDouble(System.getProperty("stub.malformed-rate", "0.02")))
+            .serverErrorRate(Double.parseDouble(System.getProperty("stub.server-error-rate", "0.01")))
+            .rateLimitBursts(Long.getLong("stub.rate-limit-period-ms", 30000),
+                    Long.getLong("stub.rate-limit-burst-ms", 2000));
+
+    private final int rps = Integer.getInteger("load.rps", 5);
+    private final int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+    private final int users = Integer.getInteger("load.users", 10);
+    private final int questionCount = Integer.getInteger("load.count", 10);
+    private final long jobTimeoutMs = Long.getLong("load.job-timeout-ms", 120000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizGenerationJobService generationJobService;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    private final List<String> emails = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void stubProvider(DynamicPropertyRegistry registry) {
+        registry.add("ai.providers", () -> "stub");
+        registry.add("ai.provider.stub.url", STUB::getUrl);
+        registry.add("ai.provider.stub.key", () -> "stub-key");
+        registry.add("ai.provider.stub.model", () -> "stub-model");
+    }
+
+    @BeforeAll
+    void createUsers() {
+        for (int i = 0; i < users; i++) {
+            String email = "load-user-" + i + "@quizgenix.test";
+            if (userRepository.findByEmail(email) == null) {
+                User user = TestData.user("Load", "User" + i, email);
+                user.setActivePlan("Yearly Plan"); // Free plan would hit the monthly cap
+                userRepository.save(user);
+            }
+            emails.add(email);
+        }
+    }
+
+    // The load users and every quiz they generated go the way a real account deletion does
+    @AfterAll
+    void deleteUsersAndStopStub() {
+        try {
+            for (String email : emails) {
+                User user = userRepository.findByEmail(email);
+                if (user != null) {
+                    accountDeletionService.deleteNow(user);
+                }
+            }
+        } finally {
+            STUB.close();
+        }
+    }
+
+    @Test
+    void generateQuizUnderLoad() throws Exception {
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService clients = Executors.newCachedThreadPool();
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger sent = new AtomicInteger();
+        int total = rps * durationSeconds;
+
+        // Open loop: requests are fired on schedule whether or not earlier ones finished
+        long startNanos = System.nanoTime();
+        ticker.scheduleAtFixedRate(() -> {
+            int n = sent.getAndIncrement();
+            if (n < total) {
+                clients.execute(() -> samples.add(runOne(n)));
+            }
+        }, 0, 1_000_000 / rps, TimeUnit.MICROSECONDS);
+
+        while (sent.get() < total) {
+            Thread.sleep(100);
+        }
+        ticker.shutdownNow();
+        clients.shutdown();
+        clients.awaitTermination(jobTimeoutMs + 10_000, TimeUnit.MILLISECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        report(samples, elapsedSeconds);
+        assertFalse(samples.isEmpty(), "No requests were recorded");
+    }
+
+    private Sample runOne(int n) {
+        String email = emails.get(n % emails.size());
+        long start = System.nanoTime();
+        try {
+            MvcResult result = mockMvc.perform(post("/generate-quiz")
+                    .with(user(email).roles("USER"))
+                    .with(csrf())
+                    .param("topic", "Load topic " + n) // Distinct topics: no cache or coalescing hits
+                    .param("difficulty", "Medium")
+                    .param("count", String.valueOf(questionCount)))
+                    .andReturn();
+
+            int status = result.getResponse().getStatus();
+            if (status == 429) {
+                return new Sample(millisSince(start), "http 429 (rate limited)");
+            }
+            String redirect = result.getResponse().getRedirectedUrl();
+            if (redirect == null || !redirect.startsWith("/quiz/generating/")) {
+                Object error = result.getFlashMap().get("error");
+                return new Sample(millisSince(start), "rejected: " + (error != null ? error : "http " + status));
+            }
+
+            String jobId = redirect.substring("/quiz/generating/".length());
+            return awaitJob(jobId, start);
+        } catch (Exception e) {
+            return new Sample(millisSince(start), "exception: " + e.getClass().getSimpleName());
+        }
+    }
+
+    private Sample awaitJob(String jobId, long start) throws InterruptedException {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(jobTimeoutMs);
+        while (System.nanoTime() < deadline) {
+            GenerationJob job = generationJobService.getJob(jobId);
+            if (job != null && job.getStatus() == Status.DONE) {
+                return new Sample(millisSince(start), "ok");
+            }
+            if (job != null && job.getStatus() == Status.FAILED) {
+                return new Sample(millisSince(start), "failed: " + job.getError());
+            }
+            Thread.sleep(50);
+        }
+        return new Sample(millisSince(start), "timeout");
+    }
+
+    private void report(List<Sample> samples, double elapsedSeconds) {
+        List<Sample> snapshot;
+        synchronized (samples) {
+            snapshot = new ArrayList<>(samples);
+        }
+
+        Map<String, Integer> outcomes = new TreeMap<>();
+        List<Long> okLatencies = new ArrayList<>();
+        for (Sample sample : snapshot) {
+            outcomes.merge(sample.outcome, 1, Integer::sum);
+            if ("ok".equals(sample.outcome)) {
+                okLatencies.add(sample.latencyMs);
+            }
+        }
+        long[] sorted = okLatencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+
+        System.out.println(">>> ===== Generation load test =====");
+        System.out.printf(">>> Target: %d req/s for %ds, %d users, %d questions each%n",
+                rps, durationSeconds, users, questionCount);
+        System.out.printf(">>> Requests: %d, completed ok: %d, throughput: %.2f quizzes/s%n",
+                snapshot.size(), sorted.length, sorted.length / elapsedSeconds);
+        System.out.printf(">>> Latency ms (ok): p50=%d p95=%d p99=%d max=%d%n",
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        System.out.println(">>> Outcomes:");
+        outcomes.forEach((outcome, count) -> System.out.printf(">>>   %-60s %d%n", outcome, count));
+        System.out.println(">>> Stub: " + STUB.getStats());
+    }
+
+    private long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private record Sample(long latencyMs, String outcome) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.quizgenix.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.quizgenix.service.LeaderboardIndex;
+
+/**
+ * Leaderboard operations at a million users: what the old queries did per page view
+ * (count users with more XP, sort everyone for the top 20), done in memory on
+ * arrays so that only the algorithm differs, against LeaderboardIndex rank, top 20,
+ * "users around me" and an XP update.
+ *
+ * Run with: mvn test -Dtest=LeaderboardBenchmark -Dleaderboard.bench=true [-Dbench.users=1000000 -Dbench.seconds=3]
+ */
+@EnabledIfSystemProperty(named = "leaderboard.bench", matches = "true")
+class LeaderboardBenchmark {
+
+    private final int users = Integer.getInteger("bench.users", 1_000_000);
+    private final long seconds = Long.getLong("bench.seconds", 3);
+
+    private static volatile long sink;
+
+    @Test
+    void compareLeaderboard() {
+        Random random = new Random(1);
+        int[] xp = new int[users];
+        for (int i = 0; i < users; i++) {
+            xp[i] = (int) Math.min(2_000_000, Math.abs(random.nextGaussian()) * 40_000); // Long tail
+        }
+
+        long start = System.nanoTime();
+        LeaderboardIndex index = new LeaderboardIndex(users);
+        for (int i = 0; i < users; i++) {
+            index.put(i + 1, xp[i]);
+        }
+        long loadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int probe = users / 2;
+        assertEquals(scanCountAbove(xp, xp[probe]), index.countAbove(xp[probe]));
+
+        long[] top = new long[20];
+        int[] topXp = new int[20];
+        long[] around = new long[7];
+        int[] aroundXp = new int[7];
+
+        measure(() -> sink = scanCountAbove(xp, xp[random.nextInt(users)]));
+        double scanRank = measure(() -> sink = scanCountAbove(xp, xp[random.nextInt(users)]));
+        double sortTop = measureOnce(() -> sink = sortedTop(xp)[0]);
+
+        measure(() -> sink = index.countAbove(index.xpOf(random.nextInt(users) + 1, 0)));
+        double rank = measure(() -> sink = index.countAbove(index.xpOf(random.nextInt(users) + 1, 0)));
+        double top20 = measure(() -> sink = index.range(0, top, topXp));
+        double nearMe = measure(() -> sink = index.range(
+                Math.max(0, index.position(random.nextInt(users) + 1) - 3), around, aroundXp));
+        double update = measure(() -> {
+            long id = random.nextInt(users) + 1;
+            index.put(id, index.xpOf(id, 0) + 10);
+        });
+
+        System.out.println(">>> ===== Leaderboard benchmark (" + users + " users) =====");
+        System.out.printf(">>> index load: %d ms%n", loadMs);
+        System.out.printf(">>> rank:   scan %.0f ns/op, index %.0f ns/op (%.0fx)%n", scanRank, rank, scanRank / rank);
+        System.out.printf(">>> top 20: sort %.0f ns/op, index %.0f ns/op (%.0fx)%n", sortTop, top20, sortTop / top20);
+        System.out.printf(">>> around me (7): %.0f ns/op, XP update: %.0f ns/op%n", nearMe, update);
+    }
+
+    // COUNT(*) WHERE total_xp > ?
+    private static long scanCountAbove(int[] xp, int value) {
+        long count = 0;
+        for (int x : xp) {
+            if (x > value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ORDER BY total_xp DESC LIMIT 20 without an index
+    private static int[] sortedTop(int[] xp) {
+        int[] copy = xp.clone();
+        Arrays.sort(copy);
+        return Arrays.copyOfRange(copy, copy.length - 20, copy.length);
+    }
+
+    private double measure(Runnable op) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long ops = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                op.run();
+            }
+            ops += 100;
+        }
+        return (double) (System.nanoTime() - start) / ops;
+    }
+
+    // For operations that take milliseconds each
+    private double measureOnce(Runnable op) {
+        op.run(); // Warmup
+        int runs = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            op.run();
+        }
+        return (double) (System.nanoTime() - start) / runs;
+    }
+}
@@ -0,0 +1,148 @@
+package com.quizgenix.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.service.QuestionSetCache;
+import com.quizgenix.service.QuizService;
+
+/**
+ * Database round trips and latency for saving one generated quiz
+ * (QuizService.createQuiz, served from the question-set cache so no AI call is made).
+ * Every question has new content, so each save also inserts its canonical rows.
+ *
+ * Run with: mvn test -Dtest=QuizPersistenceBenchmark -Dpersist.bench=true [-Dbench.quizzes=50 -Dbench.count=50]
+ * Baseline (row-at-a-time, as with IDENTITY ids): add -Dspring.jpa.properties.hibernate.jdbc.batch_size=1
+ */
+@SpringBootTest(properties = {
+        "quiz.warm-pool.enabled=false",
+        "quiz.cache.enabled=true",
+        "quiz.disk-cache.enabled=false"
+})
+@EnabledIfSystemProperty(named = "persist.bench", matches = "true")
+class QuizPersistenceBenchmark {
+
+    private static final AtomicLong STATEMENTS = new AtomicLong();
+    private static final AtomicLong BATCHES = new AtomicLong();
+
+    private final int quizzes = Integer.getInteger("bench.quizzes", 50);
+    private final int questionCount = Integer.getInteger("bench.count", 50);
+    private final int warmup = Integer.getInteger("bench.warmup", 5);
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:1}")
+    private int batchSize;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuestionSetCache questionSetCache;
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        // Counts what actually goes to the database: each execute*() or executeBatch() is one round trip
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return counting(super.getConnection(), Connection.class);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    @Test
+    void saveGeneratedQuizzes() {
+        for (int i = 0; i < warmup; i++) {
+            saveOne("warmup", i);
+        }
+
+        long[] latencies = new long[quizzes];
+        long[] roundTrips = new long[quizzes];
+        long batches = 0;
+        for (int i = 0; i < quizzes; i++) {
+            long statementsBefore = STATEMENTS.get();
+            long batchesBefore = BATCHES.get();
+            long start = System.nanoTime();
+
+            Quiz quiz = saveOne("bench", i);
+
+            latencies[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            roundTrips[i] = STATEMENTS.get() - statementsBefore;
+            batches += BATCHES.get() - batchesBefore;
+            assertEquals(questionCount, quiz.getQuestions().size());
+        }
+
+        Arrays.sort(latencies);
+        System.out.println(">>> ===== Quiz persistence benchmark =====");
+        System.out.printf(">>> %d quizzes x %d questions, hibernate.jdbc.batch_size=%d%n", quizzes, questionCount,
+                batchSize);
+        System.out.printf(">>> Round trips per quiz: avg=%.1f (of which JDBC batches: %.1f)%n",
+                Arrays.stream(roundTrips).average().orElse(0), (double) batches / quizzes);
+        System.out.printf(">>> Save latency us: p50=%d p95=%d max=%d%n",
+                latencies[quizzes / 2], latencies[(int) Math.ceil(quizzes * 0.95) - 1], latencies[quizzes - 1]);
+    }
+
+    private Quiz saveOne(String prefix, int n) {
+        String topic = prefix + " persistence topic " + n + " " + System.nanoTime();
+        questionSetCache.put(topic, "Medium", questionCount, TestData.questions(topic, questionCount));
+        return quizService.createQuiz(topic, "Medium", questionCount, null);
+    }
+
+    // JDK proxy over Connection / Statement: counts executions, passes everything through
+    @SuppressWarnings("unchecked")
+    private static <T> T counting(T target, Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            String name = method.getName();
+            if (target instanceof Statement) {
+                if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                    STATEMENTS.incrementAndGet();
+                    BATCHES.incrementAndGet();
+                } else if (name.startsWith("execute")) {
+                    STATEMENTS.incrementAndGet();
+                }
+            }
+            try {
+                Object result = method.invoke(target, args);
+                if (result instanceof Statement && method.getReturnType().isInterface()) {
+                    return counting(result, (Class<Object>) method.getReturnType());
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
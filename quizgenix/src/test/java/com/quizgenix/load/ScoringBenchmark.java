@@ -0,0 +1,116 @@
+package com.quizgenix.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.quizgenix.model.CanonicalQuestion;
+import com.quizgenix.model.Question;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.service.AnswerKeyCache.AnswerKey;
+
+/**
+ * In-memory cost of scoring one submission: the entity walk QuizService used to do
+ * (copy through a LinkedHashSet, "answer_" + i, getCorrectAnswerIndex per question)
+ * against a cached AnswerKey. Database time is excluded from both.
+ *
+ * Run with: mvn test -Dtest=ScoringBenchmark -Dscoring.bench=true [-Dbench.count=50 -Dbench.seconds=5]
+ */
+@EnabledIfSystemProperty(named = "scoring.bench", matches = "true")
+class ScoringBenchmark {
+
+    private final int questionCount = Integer.getInteger("bench.count", 50);
+    private final long seconds = Long.getLong("bench.seconds", 5);
+
+    private static volatile int sink;
+
+    @Test
+    void compareScoring() {
+        Quiz quiz = buildQuiz();
+        Map<String, String> params = new HashMap<>();
+        params.put("quizId", "1");
+        for (int i = 0; i < questionCount; i++) {
+            params.put("answer_" + i, i % 3 == 0 ? " Wrong " + i : "Right answer " + i + " ");
+        }
+        AnswerKey key = AnswerKey.of(quiz);
+        String[] answers = new String[key.size()];
+        assertEquals(entityScore(quiz, params), key.score(params, answers));
+
+        // Each gets a warmup run of the same length first, so both are measured JIT-compiled
+        measure(() -> sink = entityScore(quiz, params));
+        double legacy = measure(() -> sink = entityScore(quiz, params));
+        measure(() -> sink = key.score(params, new String[key.size()]));
+        double cached = measure(() -> sink = key.score(params, new String[key.size()]));
+
+        System.out.println(">>> ===== Scoring benchmark (" + questionCount + " questions) =====");
+        System.out.printf(">>> entity walk: %.0f ns/op, answer key: %.0f ns/op (%.1fx)%n", legacy, cached,
+                legacy / cached);
+    }
+
+    private double measure(Runnable op) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long ops = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1000; i++) {
+                op.run();
+            }
+            ops += 1000;
+        }
+        return (double) (System.nanoTime() - start) / ops;
+    }
+
+    // The scoring loop as it was before answer keys (minus the database)
+    private int entityScore(Quiz quiz, Map<String, String> allParams) {
+        Set<Question> uniqueQuestions = new LinkedHashSet<>(quiz.getQuestions());
+        List<Question> questions = new ArrayList<>(uniqueQuestions);
+        int correctAnswers = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            String userSelectedText = allParams.get("answer_" + i);
+            String userAnswer = userSelectedText != null ? userSelectedText.trim() : "";
+
+            String actualCorrectText = q.getCorrectAnswer();
+            int correctIndex = q.getCorrectAnswerIndex();
+            if (correctIndex != -1 && q.getOptions() != null && correctIndex < q.getOptions().size()) {
+                actualCorrectText = q.getOptions().get(correctIndex);
+            }
+            if (!userAnswer.isEmpty() && actualCorrectText != null
+                    && userAnswer.equalsIgnoreCase(actualCorrectText.trim())) {
+                correctAnswers++;
+            }
+        }
+        return correctAnswers;
+    }
+
+    private Quiz buildQuiz() {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            CanonicalQuestion content = new CanonicalQuestion();
+            content.setId((long) i + 1);
+            content.setText("Benchmark question " + i + "?");
+            content.setOptions(List.of("Wrong A " + i, "Right answer " + i, "Wrong C " + i, "Wrong D " + i));
+            content.setCorrectAnswer("B");
+
+            Question q = new Question();
+            q.setId((long) i + 1);
+            q.setCanonical(content);
+            q.setPosition(i);
+            questions.add(q);
+        }
+        Quiz quiz = new Quiz();
+        quiz.setId(1L);
+        quiz.setDifficulty("Medium");
+        quiz.setQuestions(questions);
+        return quiz;
+    }
+}
@@ -0,0 +1,250 @@
+package com.quizgenix.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for an OpenAI-compatible chat-completions endpoint.
+ * Point ai.api.url (or ai.provider.<name>.url) at {@link #getUrl()}.
+ *
+ * Simulates: log-normal latency (median / p99), token streaming for
+ * "stream": true requests, malformed JSON at a given rate, periodic 429
+ * bursts and random 5xx errors.
+ */
+public class StubLlmServer implements AutoCloseable {
+
+    private static final Pattern COUNT = Pattern.compile("Generate (\\d+)");
+    private static final double Z_99 = 2.326;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile long medianLatencyMs = 800;
+    private volatile long p99LatencyMs = 4000;
+    private volatile int streamChunkChars = 24;
+    private volatile long streamChunkDelayMs = 15;
+    private volatile double malformedRate = 0;
+    private volatile double serverErrorRate = 0;
+    private volatile long rateLimitPeriodMs = 0;
+    private volatile long rateLimitBurstMs = 0;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicLong questionSeq = new AtomicLong();
+
+    private StubLlmServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(workers);
+    }
+
+    public static StubLlmServer start() {
+        try {
+            StubLlmServer stub = new StubLlmServer();
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start stub LLM server", e);
+        }
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    // =========================================================
+    // BEHAVIOUR
+    // =========================================================
+    public StubLlmServer latency(long medianMs, long p99Ms) {
+        this.medianLatencyMs = medianMs;
+        this.p99LatencyMs = Math.max(medianMs, p99Ms);
+        return this;
+    }
+
+    public StubLlmServer streaming(int chunkChars, long chunkDelayMs) {
+        this.streamChunkChars = Math.max(1, chunkChars);
+        this.streamChunkDelayMs = chunkDelayMs;
+        return this;
+    }
+
+    public StubLlmServer malformedRate(double rate) {
+        this.malformedRate = rate;
+        return this;
+    }
+
+    public StubLlmServer serverErrorRate(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    // Every periodMs, answer 429 for burstMs (0 disables)
+    public StubLlmServer rateLimitBursts(long periodMs, long burstMs) {
+        this.rateLimitPeriodMs = periodMs;
+        this.rateLimitBurstMs = burstMs;
+        return this;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("requests", requests.get());
+        data.put("streamed", streamed.get());
+        data.put("rateLimited", rateLimited.get());
+        data.put("serverErrors", serverErrors.get());
+        data.put("malformed", malformed.get());
+        return data;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    // =========================================================
+    // REQUEST HANDLING
+    // =========================================================
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+
+            if (inRateLimitBurst()) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 429, Map.of("error", Map.of("message", "Rate limit reached", "type", "rate_limit")));
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < serverErrorRate) {
+                serverErrors.incrementAndGet();
+                sendJson(exchange, 503, Map.of("error", Map.of("message", "Service unavailable")));
+                return;
+            }
+
+            sleep(sampleLatencyMs());
+
+            String prompt = request.path("messages").path(0).path("content").asText("");
+            String content = buildContent(prompt);
+            if (request.path("stream").asBoolean(false)) {
+                streamed.incrementAndGet();
+                sendStream(exchange, content, usage(prompt, content));
+            } else {
+                Map<String, Object> message = Map.of("role", "assistant", "content", content);
+                sendJson(exchange, 200, Map.of(
+                        "id", "stub-" + requests.get(),
+                        "model", request.path("model").asText("stub"),
+                        "choices", List.of(Map.of("index", 0, "message", message, "finish_reason", "stop")),
+                        "usage", usage(prompt, content)));
+            }
+        }
+    }
+
+    private String buildContent(String prompt) throws IOException {
+        Matcher matcher = COUNT.matcher(prompt);
+        int count = matcher.find() ? Integer.parseInt(matcher.group(1)) : 5;
+
+        List<Map<String, Object>> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long n = questionSeq.incrementAndGet();
+            questions.add(Map.of(
+                    "text", "Stub question #" + n + ": which option is correct?",
+                    "options", List.of("Option A " + n, "Option B " + n, "Option C " + n, "Option D " + n),
+                    "correctAnswer", "A",
+                    "explanation", "Generated by the stub server."));
+        }
+        // Real models often wrap the array in a markdown fence
+        String content = "```json\n" + objectMapper.writeValueAsString(questions) + "\n```";
+
+        if (ThreadLocalRandom.current().nextDouble() < malformedRate) {
+            malformed.incrementAndGet();
+            return content.substring(0, content.length() / 2); // Truncated mid-object
+        }
+        return content;
+    }
+
+    // Rough token counts (~4 chars per token), shaped like the real "usage" block
+    private Map<String, Object> usage(String prompt, String content) {
+        int promptTokens = prompt.length() / 4 + 1;
+        int completionTokens = content.length() / 4 + 1;
+        return Map.of("prompt_tokens", promptTokens, "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens);
+    }
+
+    // Usage arrives on the last chunk under "x_groq", as Groq sends it
+    private void sendStream(HttpExchange exchange, String content, Map<String, Object> usage) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < content.length(); i += streamChunkChars) {
+            String piece = content.substring(i, Math.min(content.length(), i + streamChunkChars));
+            Map<String, Object> chunk = Map.of("choices", List.of(Map.of("index", 0, "delta", Map.of("content", piece))));
+            out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(streamChunkDelayMs);
+        }
+        Map<String, Object> last = Map.of("choices", List.of(Map.of("index", 0, "delta", Map.of(),
+                "finish_reason", "stop")), "x_groq", Map.of("usage", usage));
+        out.write(("data: " + objectMapper.writeValueAsString(last) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private boolean inRateLimitBurst() {
+        if (rateLimitPeriodMs <= 0 || rateLimitBurstMs <= 0) {
+            return false;
+        }
+        return (System.currentTimeMillis() - startedAt) % rateLimitPeriodMs < rateLimitBurstMs;
+    }
+
+    // Log-normal around the median, with sigma chosen so the 99th percentile lands on p99
+    private long sampleLatencyMs() {
+        if (medianLatencyMs <= 0) {
+            return 0;
+        }
+        double sigma = Math.log((double) p99LatencyMs / medianLatencyMs) / Z_99;
+        return Math.round(medianLatencyMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.quizgenix.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The length-prefixed option column: any text round-trips unchanged, and a value that
+ * was not written by the converter fails loudly instead of yielding shifted options.
+ */
+class OptionListConverterTest {
+
+    private final OptionListConverter converter = new OptionListConverter();
+
+    @Test
+    void delimitersAndColonsRoundTrip() {
+        List<String> options = List.of("3:abc", "a, b", "\"quoted\"", "line\nbreak", "::", "12:", "日本語");
+        String encoded = converter.convertToDatabaseColumn(options);
+        assertEquals(options, converter.convertToEntityAttribute(encoded));
+    }
+
+    @Test
+    void emptyValuesRoundTrip() {
+        assertEquals("0:5:Paris0:", converter.convertToDatabaseColumn(List.of("", "Paris", "")));
+        assertEquals(List.of("", "Paris", ""), converter.convertToEntityAttribute("0:5:Paris0:"));
+
+        assertEquals("", converter.convertToDatabaseColumn(List.of()));
+        assertTrue(converter.convertToEntityAttribute("").isEmpty());
+    }
+
+    @Test
+    void nullsAreHandled() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+        // A null option is stored as an empty one
+        assertEquals(List.of("A", ""), converter.convertToEntityAttribute(
+                converter.convertToDatabaseColumn(Arrays.asList("A", null))));
+    }
+
+    @Test
+    void corruptValuesAreRejected() {
+        for (String corrupt : List.of("Paris", "5:Pari", "x:Paris", "-1:Paris", "5:Paris3", "5:Paris:")) {
+            assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute(corrupt),
+                    corrupt);
+        }
+    }
+}
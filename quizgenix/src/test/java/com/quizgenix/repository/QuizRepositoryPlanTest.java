@@ -0,0 +1,272 @@
+package com.quizgenix.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.quizgenix.model.User;
+
+/**
+ * Query plans of every per-user / time-window QuizRepository query on a seeded table
+ * of a million quizzes (1,000 users, two years of history). The SQL Hibernate actually
+ * generates is captured and run through EXPLAIN with the same parameters; each must
+ * be an index range/ref scan, and the counting ones index-only.
+ *
+ * Seeding takes a while, so it is opt-in:
+ * mvn test -Dtest=QuizRepositoryPlanTest -Dplan.test=true [-Dplan.rows=1000000]
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.quizgenix.repository.QuizRepositoryPlanTest$CapturingInspector",
+        "quiz.warm-pool.enabled=false"
+})
+@EnabledIfSystemProperty(named = "plan.test", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QuizRepositoryPlanTest {
+
+    private static final int USERS = 1000;
+    private static final Set<String> INDEX_SCANS = Set.of("range", "ref");
+    // The quiz table as EXPLAIN names it: by name, native alias, or Hibernate alias (q1_0)
+    private static final Pattern QUIZ_TABLE = Pattern.compile("quiz|q|q\\d+_\\d+");
+    private static final List<String> CAPTURED = new ArrayList<>();
+
+    private final int rows = Integer.getInteger("plan.rows", 1_000_000);
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long firstUserId;
+    private long firstQuizId;
+    private User user;
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            synchronized (CAPTURED) {
+                CAPTURED.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        String tag = String.valueOf(System.nanoTime());
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement st = connection.createStatement()) {
+                st.execute("SET SESSION cte_max_recursion_depth = " + (rows + 1));
+                st.executeUpdate("INSERT INTO users (first_name, last_name, email, password, role, enabled, total_xp) "
+                        + "WITH RECURSIVE seq(n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM seq WHERE n < " + (USERS - 1) + ") "
+                        + "SELECT 'Plan', CONCAT('User ', n), CONCAT('plan-', n, '-" + tag + "@quizgenix.test'), "
+                        + "'PlanTest#123', 'USER', 1, 0 FROM seq");
+            }
+            return null;
+        });
+        firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE email LIKE ?", Long.class,
+                "plan-%-" + tag + "@quizgenix.test");
+        // Far above anything the id sequence hands out while the test runs
+        firstQuizId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM quiz", Long.class) + 100_000_000L;
+
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement st = connection.createStatement()) {
+                st.execute("SET SESSION cte_max_recursion_depth = " + (rows + 1));
+                st.executeUpdate("INSERT INTO quiz (id, user_id, topic, difficulty, total_questions, score, created_at) "
+                        + "WITH RECURSIVE seq(n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM seq WHERE n < " + (rows - 1) + ") "
+                        + "SELECT " + firstQuizId + " + n, " + firstUserId + " + n % " + USERS + ", "
+                        + "CONCAT('Plan topic ', n % 400), ELT(1 + n % 4, 'Easy', 'Medium', 'Hard', 'Expert'), "
+                        + "5 + n % 4 * 5, n % 101, NOW() - INTERVAL (n % 730) DAY - INTERVAL (n % 86400) SECOND "
+                        + "FROM seq");
+                st.execute("ANALYZE TABLE quiz");
+            }
+            return null;
+        });
+        System.out.println(">>> Seeded " + rows + " quizzes in " + (System.currentTimeMillis() - start) + " ms");
+
+        user = new User();
+        user.setId(firstUserId + 7);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM quiz WHERE id >= ?", firstQuizId);
+        jdbcTemplate.update("DELETE FROM users WHERE id >= ? AND id < ?", firstUserId, firstUserId + USERS);
+    }
+
+    @Test
+    void countQuizzesThisMonth() {
+        YearMonth month = YearMonth.now();
+        assertPlan(() -> quizRepository.countQuizzesThisMonth(user), true, user.getId(),
+                month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    @Test
+    void countInWindow() {
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        assertPlan(() -> quizRepository.countInWindow(user, from, LocalDateTime.now()), true, user.getId(),
+                from, LocalDateTime.now());
+    }
+
+    @Test
+    void countByUser() {
+        assertPlan(() -> quizRepository.countByUser(user), true, user.getId());
+    }
+
+    @Test
+    void findAverageScoreByUser() {
+        assertPlan(() -> quizRepository.findAverageScoreByUser(user), true, user.getId());
+    }
+
+    @Test
+    void findTop5ByUserOrderByCreatedAtDesc() {
+        assertPlan(() -> quizRepository.findTop5ByUserOrderByCreatedAtDesc(user), false, user.getId(), 5);
+    }
+
+    @Test
+    void findByUserOrderByCreatedAtDesc() {
+        assertPlan(() -> quizRepository.findByUserOrderByCreatedAtDesc(user), false, user.getId());
+    }
+
+    @Test
+    void findByUserAndCreatedAtAfterOrderByCreatedAtDesc() {
+        LocalDateTime since = LocalDateTime.now().minusDays(7);
+        assertPlan(() -> quizRepository.findByUserAndCreatedAtAfterOrderByCreatedAtDesc(user, since), false,
+                user.getId(), since);
+    }
+
+    @Test
+    void findDistinctTopicsByUser() {
+        assertPlan(() -> quizRepository.findDistinctTopicsByUser(user), true, user.getId());
+    }
+
+    @Test
+    void findInWindow() {
+        LocalDateTime from = LocalDateTime.now().minusDays(60);
+        LocalDateTime to = LocalDateTime.now();
+        // Page query (with limit), then its count query: a 60-day window holds ~80 quizzes
+        // per seeded user, more than the page, so Spring Data always issues the count
+        List<String> sql = capture(() -> quizRepository.findInWindow(user, from, to,
+                PageRequest.of(0, 10, Sort.by("createdAt").descending())));
+        assertEquals(2, sql.size(), "Expected the page and its count query: " + sql);
+        assertIndexPlan(sql.get(0), false, user.getId(), from, to, 10);
+        assertIndexPlan(sql.get(1), true, user.getId(), from, to);
+    }
+
+    @Test
+    void findTrendingTopics() {
+        LocalDateTime since = LocalDateTime.now().minusDays(14);
+        assertPlan(() -> quizRepository.findTrendingTopics(since, PageRequest.of(0, 20)), true, since, 20);
+    }
+
+    @Test
+    void findByUser() {
+        assertPlan(() -> quizRepository.findByUser(user), false, user.getId());
+    }
+
+    @Test
+    void findIdsByUserId() {
+        assertPlan(() -> quizRepository.findIdsByUserId(user.getId(), PageRequest.of(0, 200)), true,
+                user.getId(), 200);
+    }
+
+    // Runs the repository call, then EXPLAINs the one statement it issued
+    private void assertPlan(Supplier<?> call, boolean indexOnly, Object... params) {
+        List<String> sql = capture(call);
+        assertEquals(1, sql.size(), "Expected one statement: " + sql);
+        assertIndexPlan(sql.get(0), indexOnly, params);
+    }
+
+    private List<String> capture(Supplier<?> call) {
+        synchronized (CAPTURED) {
+            CAPTURED.clear();
+        }
+        call.get();
+        synchronized (CAPTURED) {
+            return new ArrayList<>(CAPTURED);
+        }
+    }
+
+    private void assertIndexPlan(String sql, boolean indexOnly, Object... params) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            String plan = explain(connection, sql, params);
+            System.out.println(">>> " + sql + "\n>>>   " + plan);
+            int checked = 0;
+            for (String row : plan.split("\n")) {
+                String table = field(row, "table");
+                if (table == null || !QUIZ_TABLE.matcher(table).matches()) {
+                    continue; // Derived / temporary tables
+                }
+                checked++;
+                String type = field(row, "type");
+                String key = field(row, "key");
+                assertTrue(INDEX_SCANS.contains(type), "Not an index range scan: " + row);
+                assertTrue(key != null && key.startsWith("idx_quiz_"), "Not using a quiz index: " + row);
+                if (indexOnly) {
+                    assertTrue(row.contains("Using index"), "Reads table rows: " + row);
+                }
+            }
+            assertTrue(checked > 0, "No quiz table in the plan: " + plan);
+            return null;
+        });
+    }
+
+    private static String explain(Connection connection, String sql, Object... params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                Object p = params[i];
+                ps.setObject(i + 1, p instanceof LocalDateTime t ? Timestamp.valueOf(t) : p);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append("table=").append(rs.getString("table"))
+                            .append(" type=").append(rs.getString("type"))
+                            .append(" key=").append(rs.getString("key"))
+                            .append(" rows=").append(rs.getString("rows"))
+                            .append(" extra=").append(rs.getString("Extra"))
+                            .append('\n');
+                }
+            }
+        }
+        return plan.toString().trim();
+    }
+
+    private static String field(String row, String name) {
+        for (String part : row.split(" ")) {
+            if (part.startsWith(name + "=")) {
+                String value = part.substring(name.length() + 1);
+                return "null".equals(value) ? null : value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.Payment;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.User;
+import com.quizgenix.repository.PaymentRepository;
+import com.quizgenix.repository.UserRepository;
+
+/**
+ * Deleting an account removes its quizzes and questions in batches (batch size 2 here),
+ * the stats rows and the user, and keeps its payments archived and its XP ledger rows,
+ * both unlinked from the user.
+ */
+@SpringBootTest(properties = { "quiz.warm-pool.enabled=false", "quiz.account-deletion.batch-size=2" })
+class AccountDeletionTest {
+
+    private static final int QUESTIONS = 3;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuestionSetCache questionSetCache;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private Payment payment;
+
+    @BeforeEach
+    void createUser() {
+        owner = userRepository.save(TestData.user("Delete", "Me", TestData.uniqueEmail("delete")));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (payment != null) {
+            paymentRepository.deleteById(payment.getId());
+        }
+    }
+
+    @Test
+    void deletesEverythingButArchivedPaymentsAndLedger() throws Exception {
+        String topic = "Deletion " + System.nanoTime();
+        List<Long> quizIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Quiz quiz = createQuiz(topic, i);
+            quizIds.add(quiz.getId());
+            quizService.scoreQuiz(quiz.getId(), Map.of("answer_0", "Right 0"));
+        }
+        submissionPipeline.flush(10_000);
+
+        payment = new Payment();
+        payment.setOrderId("order_delete_" + System.nanoTime());
+        payment.setStatus("paid");
+        payment.setAmount("99");
+        payment.setPlanName("Monthly Plan");
+        payment.setUser(owner);
+        payment = paymentRepository.save(payment);
+
+        accountDeletionService.deleteNow(owner);
+
+        Long userId = owner.getId();
+        String in = quizIds.stream().map(String::valueOf).reduce((a, b) -> a + "," + b).orElseThrow();
+        assertEquals(0, count("SELECT COUNT(*) FROM quiz WHERE id IN (" + in + ")"));
+        assertEquals(0, count("SELECT COUNT(*) FROM question WHERE quiz_id IN (" + in + ")"));
+        assertEquals(0, count("SELECT COUNT(*) FROM xp_ledger WHERE user_id = " + userId));
+        // The XP audit trail stays, anonymized
+        assertEquals(5, count("SELECT COUNT(*) FROM xp_ledger WHERE user_id IS NULL AND quiz_id IN (" + in + ")"));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_stats WHERE user_id = " + userId));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_topic_stats WHERE user_id = " + userId));
+        assertFalse(userRepository.existsById(userId));
+        assertEquals(0, userStatsService.get(userId).getQuizCount());
+
+        Payment archived = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertNull(archived.getUser());
+        assertEquals("Delete Me", archived.getArchivedUserName());
+        assertEquals(owner.getEmail(), archived.getArchivedUserEmail());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private Quiz createQuiz(String topic, int n) {
+        questionSetCache.put(topic, "Medium", QUESTIONS, TestData.questions(topic + " " + n, QUESTIONS));
+        return quizService.createQuiz(topic, "Medium", QUESTIONS, owner, false);
+    }
+}
@@ -0,0 +1,76 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.quizgenix.exception.AiBusyException;
+import com.quizgenix.exception.AiResponseException;
+
+/**
+ * Which errors count against the provider: timeouts, network errors and 5xx open the
+ * breaker, a 429 cuts the limit, and an unusable answer or a 4xx changes neither.
+ */
+class AiCallGuardTest {
+
+    private AiCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new AiCallGuard();
+        ReflectionTestUtils.setField(guard, "initialLimit", 4.0);
+        ReflectionTestUtils.setField(guard, "minLimit", 1.0);
+        ReflectionTestUtils.setField(guard, "maxLimit", 20.0);
+        ReflectionTestUtils.setField(guard, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(guard, "slowCallMs", 30_000L);
+        ReflectionTestUtils.setField(guard, "queueTimeoutMs", 100L);
+        ReflectionTestUtils.setField(guard, "maxQueue", 20);
+        ReflectionTestUtils.setField(guard, "failureThreshold", 3);
+        ReflectionTestUtils.setField(guard, "openMs", 60_000L);
+    }
+
+    @Test
+    void unusableAnswersAndClientErrorsLeaveTheBreakerClosed() {
+        for (int i = 0; i < 5; i++) {
+            fail(() -> new AiResponseException(AiResponseException.Kind.BAD_JSON, "not JSON"));
+            fail(() -> new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        }
+        assertEquals("CLOSED", guard.getStats().get("breakerState"));
+        assertEquals(0, guard.getStats().get("consecutiveFailures"));
+        assertEquals(4.0, guard.getStats().get("limit"));
+    }
+
+    @Test
+    void timeoutsNetworkErrorsAndServerErrorsOpenTheBreaker() {
+        fail(() -> new ResourceAccessException("read timed out", new SocketTimeoutException()));
+        fail(() -> new ResourceAccessException("connection reset", new IOException()));
+        fail(() -> new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        assertEquals("OPEN", guard.getStats().get("breakerState"));
+        assertThrows(AiBusyException.class, () -> guard.execute(() -> "answer"));
+    }
+
+    @Test
+    void rateLimitIsCountedAndCutsTheLimit() {
+        fail(() -> new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+        assertEquals(1L, guard.getStats().get("rateLimited"));
+        assertEquals(2.0, guard.getStats().get("limit"));
+    }
+
+    private void fail(Supplier<RuntimeException> error) {
+        RuntimeException thrown = error.get();
+        assertEquals(thrown, assertThrows(RuntimeException.class, () -> guard.execute(() -> {
+            throw thrown;
+        })));
+    }
+}
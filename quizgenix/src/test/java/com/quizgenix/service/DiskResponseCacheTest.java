@@ -0,0 +1,128 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The memory-mapped answer log: entries survive a reopen, torn or corrupted records
+ * are misses rather than errors, and compaction keeps the newest entries, whatever
+ * compact-target is configured.
+ */
+class DiskResponseCacheTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesSurviveReopenAndTheNewestWins() {
+        DiskResponseCache cache = open(0.5, 30);
+        String key = DiskResponseCache.fingerprint("Java", "Medium", 10, "model-a");
+        cache.put(key, bytes("first"));
+        cache.put(key, bytes("second"));
+        cache.put(DiskResponseCache.fingerprint("Java", "Medium", 10, "model-b"), bytes("other model"));
+        cache.close();
+
+        DiskResponseCache reopened = open(0.5, 30);
+        assertArrayEquals(bytes("second"), reopened.get(key));
+        assertArrayEquals(bytes("other model"),
+                reopened.get(DiskResponseCache.fingerprint("Java", "Medium", 10, "model-b")));
+        assertNull(reopened.get(DiskResponseCache.fingerprint("Java", "Hard", 10, "model-a")));
+        reopened.close();
+    }
+
+    @Test
+    void tornAndCorruptRecordsAreMisses() throws IOException {
+        DiskResponseCache cache = open(0.5, 30);
+        cache.put("kept", bytes("value"));
+        cache.put("flipped", bytes("value"));
+        int tornAt = (int) cache.getStats().get("bytesUsed");
+        cache.put("torn", bytes("value"));
+        cache.close();
+
+        try (FileChannel file = FileChannel.open(dir.resolve("responses.log"), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[4]), tornAt); // Magic never written: the crash case
+            int flippedValue = tornAt - "value".length();
+            file.write(ByteBuffer.wrap(bytes("VALUE")), flippedValue);
+        }
+
+        DiskResponseCache reopened = open(0.5, 30);
+        assertArrayEquals(bytes("value"), reopened.get("kept"));
+        assertNull(reopened.get("flipped"));
+        assertNull(reopened.get("torn"));
+        assertEquals(tornAt, reopened.getStats().get("bytesUsed")); // Next write goes where the torn one was
+        reopened.close();
+    }
+
+    @Test
+    void compactionKeepsTheNewestEntries() {
+        DiskResponseCache cache = open(0.5, 30);
+        byte[] value = new byte[100 * 1024];
+        for (int i = 0; i < 25; i++) {
+            value[0] = (byte) i;
+            cache.put("entry-" + i, value);
+        }
+
+        assertTrue((long) cache.getStats().get("compactions") >= 1);
+        assertNull(cache.get("entry-0"));
+        assertEquals(24, cache.get("entry-24")[0]);
+        assertEquals(23, cache.get("entry-23")[0]);
+        cache.close();
+    }
+
+    @Test
+    void compactTargetAboveHalfIsClamped() {
+        DiskResponseCache cache = open(0.9, 30);
+        byte[] value = new byte[400 * 1024];
+        for (int i = 0; i < 12; i++) {
+            value[0] = (byte) i;
+            cache.put("entry-" + i, value); // Used to write past the mapping after a compaction
+        }
+        assertEquals(11, cache.get("entry-11")[0]);
+        cache.close();
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        DiskResponseCache cache = open(0.5, 30);
+        cache.put("old", bytes("value"));
+        assertArrayEquals(bytes("value"), cache.get("old"));
+
+        // createdAt is stored as epoch millis; 31 days back is past the 30-day TTL
+        MappedByteBuffer buffer = (MappedByteBuffer) ReflectionTestUtils.getField(cache, "buffer");
+        buffer.putLong(12, System.currentTimeMillis() - 31L * 24 * 60 * 60 * 1000);
+        assertNull(cache.get("old"));
+        cache.close();
+    }
+
+    private DiskResponseCache open(double compactTarget, int ttlDays) {
+        DiskResponseCache cache = new DiskResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxMb", 1);
+        ReflectionTestUtils.setField(cache, "compactTarget", compactTarget);
+        ReflectionTestUtils.setField(cache, "ttlDays", ttlDays);
+        cache.open();
+        assertEquals(MB, cache.getStats().get("capacityBytes"));
+        return cache;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,96 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.quizgenix.exception.AiBusyException;
+import com.quizgenix.model.Question;
+
+/**
+ * A leader that dies with an Error still releases its followers and its key, and a
+ * follower stuck behind a leader that never returns gives up after the AI deadline.
+ */
+class GenerationCoalescerTest {
+
+    private GenerationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new GenerationCoalescer();
+        ReflectionTestUtils.setField(coalescer, "queueTimeoutMs", 100L);
+        ReflectionTestUtils.setField(coalescer, "callTimeoutMs", 200L);
+    }
+
+    @Test
+    void leaderErrorReachesFollowersAndFreesTheKey() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch followerJoined = new CountDownLatch(1);
+        CompletableFuture<List<Question>> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("Java", "Easy", 5, () -> {
+                    leading.countDown();
+                    await(followerJoined);
+                    throw new StackOverflowError("bad parse");
+                }));
+        assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<List<Question>> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("Java", "Easy", 5, List::of));
+        awaitCoalesced(1);
+        followerJoined.countDown();
+
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception seen = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(seen.getCause() instanceof StackOverflowError, String.valueOf(seen.getCause()));
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+    }
+
+    @Test
+    void followerGivesUpAfterTheAiDeadline() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Question>> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("Java", "Hard", 5, () -> {
+                    leading.countDown();
+                    await(release);
+                    return List.of();
+                }));
+        assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThrows(AiBusyException.class, () -> coalescer.execute("Java", "Hard", 5, List::of));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMs >= 300 && waitedMs < 5_000, "waited " + waitedMs + " ms");
+
+        release.countDown();
+        assertEquals(List.of(), leader.get(5, TimeUnit.SECONDS)); // The leader itself is unaffected
+        assertEquals(1L, coalescer.getStats().get("followerTimeouts"));
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) coalescer.getStats().get("coalesced") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Map<String, Object> stats = coalescer.getStats();
+        assertEquals(expected, stats.get("coalesced"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
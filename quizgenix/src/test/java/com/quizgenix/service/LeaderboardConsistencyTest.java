@@ -0,0 +1,106 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.User;
+import com.quizgenix.service.XpService.XpAward;
+
+/**
+ * The in-memory leaderboard follows the database through its hooks alone: a registered
+ * user is ranked with 0 XP, an XP award moves them once it commits, and a deleted
+ * account leaves the index. rank() is never the one that adds the user here.
+ */
+@SpringBootTest(properties = "quiz.warm-pool.enabled=false")
+class LeaderboardConsistencyTest {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private XpService xpService;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Registration sends a verification mail; no SMTP server here
+    @MockitoBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void syncIndex() {
+        leaderboardService.reload(); // Users other tests saved without the hooks
+    }
+
+    @Test
+    void hooksKeepTheIndexInLineWithUsers() throws Exception {
+        User user = TestData.user("Board", "Climber", TestData.uniqueEmail("leaderboard"));
+        userService.register(user, "http://localhost");
+        Long id = user.getId();
+
+        assertTrue(index().contains(id), "Registration did not index the user");
+        assertEquals(storedXp(id), index().xpOf(id, -1));
+        assertEquals(storedRank(id), leaderboardService.rank(user));
+
+        xpService.award(List.of(new XpAward(id, null, 40), new XpAward(id, null, 25)));
+        assertEquals(65, storedXp(id));
+        assertEquals(65, index().xpOf(id, -1));
+        assertEquals(storedRank(id), leaderboardService.rank(user));
+
+        accountDeletionService.deleteNow(user);
+        assertFalse(index().contains(id), "Deleted user still ranked");
+    }
+
+    @Test
+    void reloadDropsUsersThatAreGoneAndPicksUpChangedXp() throws Exception {
+        User stays = TestData.user("Board", "Stays", TestData.uniqueEmail("leaderboard"));
+        User goes = TestData.user("Board", "Goes", TestData.uniqueEmail("leaderboard"));
+        userService.register(stays, "http://localhost");
+        userService.register(goes, "http://localhost");
+
+        // Changed behind the hooks' back, as an XP recompute or a manual fix would
+        jdbcTemplate.update("UPDATE users SET total_xp = 90 WHERE id = ?", stays.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", goes.getId());
+        leaderboardService.reload();
+
+        assertEquals(90, index().xpOf(stays.getId(), -1));
+        assertFalse(index().contains(goes.getId()));
+        assertEquals(count("SELECT COUNT(*) FROM users"), index().size());
+
+        accountDeletionService.deleteNow(stays);
+    }
+
+    private LeaderboardIndex index() {
+        return (LeaderboardIndex) ReflectionTestUtils.getField(leaderboardService, "index");
+    }
+
+    private int storedXp(Long id) {
+        return jdbcTemplate.queryForObject("SELECT total_xp FROM users WHERE id = ?", Integer.class, id);
+    }
+
+    private long storedRank(Long id) {
+        return count("SELECT COUNT(*) FROM users WHERE total_xp > " + storedXp(id)) + 1;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
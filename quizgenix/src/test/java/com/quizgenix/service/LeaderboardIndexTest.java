@@ -0,0 +1,93 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The skip list must agree with a plain sort after any mix of inserts, XP changes and
+ * removals: order, positions, ranges and "users with more XP" counts.
+ */
+class LeaderboardIndexTest {
+
+    @Test
+    void matchesSortedListUnderRandomUpdates() {
+        Random random = new Random(7);
+        LeaderboardIndex index = new LeaderboardIndex(8); // Small, so the arrays grow too
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int step = 0; step < 50_000; step++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(5) < 4) {
+                int xp = random.nextInt(40) * 10; // Few distinct values: lots of ties
+                index.put(id, xp);
+                expected.put(id, xp);
+            } else {
+                index.remove(id);
+                expected.remove(id);
+            }
+            if (step % 5_000 == 0) {
+                assertSameOrder(expected, index, random);
+            }
+        }
+        assertSameOrder(expected, index, random);
+    }
+
+    @Test
+    void ranksShareTiesAndWindowsStopAtTheEnds() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.put(5, 300);
+        index.put(3, 500);
+        index.put(9, 300);
+        index.put(1, 0);
+
+        assertEquals(0, index.countAbove(500)); // Rank 1
+        assertEquals(1, index.countAbove(300)); // Both 300s are rank 2
+        assertEquals(3, index.countAbove(0));
+        assertEquals(1, index.position(5));
+        assertEquals(2, index.position(9)); // Lower id first on equal XP
+        assertEquals(-1, index.position(42));
+
+        long[] ids = new long[3];
+        int[] xps = new int[3];
+        assertEquals(2, index.range(2, ids, xps));
+        assertEquals(9, ids[0]);
+        assertEquals(1, ids[1]);
+        assertEquals(0, index.range(4, ids, xps));
+        assertArrayEquals(new long[] { 3, 5, 9, 1 }, index.ids());
+
+        index.put(1, 900); // Moves to the top
+        assertEquals(0, index.position(1));
+        assertEquals(900, index.xpOf(1, -1));
+    }
+
+    private void assertSameOrder(Map<Long, Integer> expected, LeaderboardIndex index, Random random) {
+        List<Map.Entry<Long, Integer>> sorted = new ArrayList<>(expected.entrySet());
+        sorted.sort((a, b) -> !a.getValue().equals(b.getValue())
+                ? Integer.compare(b.getValue(), a.getValue())
+                : Long.compare(a.getKey(), b.getKey()));
+        assertEquals(sorted.size(), index.size());
+
+        long[] ids = new long[sorted.size()];
+        int[] xps = new int[sorted.size()];
+        assertEquals(sorted.size(), index.range(0, ids, xps));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i).getKey(), ids[i]);
+            assertEquals(sorted.get(i).getValue(), xps[i]);
+            assertEquals(i, index.position(ids[i]));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            int xp = random.nextInt(45) * 10 - 5;
+            long above = expected.values().stream().filter(v -> v > xp).count();
+            assertEquals(above, index.countAbove(xp));
+        }
+    }
+}
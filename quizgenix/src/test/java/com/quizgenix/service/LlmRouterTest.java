@@ -0,0 +1,167 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.quizgenix.service.LlmRouter.Attempt;
+
+/**
+ * Routing decisions with stub providers instead of HTTP: a slow provider is hedged
+ * after the delay, the first answer wins and the other request is cancelled, errors
+ * fail over to the next provider, and a benched provider comes back after its cool-down.
+ */
+class LlmRouterTest {
+
+    private final LlmProvider primary = new LlmProvider("primary", "", "", "model-a", 1.0);
+    private final LlmProvider fallback = new LlmProvider("fallback", "", "", "model-b", 1.0);
+
+    private ThreadPoolTaskExecutor executor;
+    private LlmRouter router;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+
+        router = new LlmRouter();
+        ReflectionTestUtils.setField(router, "aiHedgeExecutor", executor);
+        ReflectionTestUtils.setField(router, "providers", List.of(primary, fallback));
+        ReflectionTestUtils.setField(router, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(router, "initialHedgeDelayMs", 200L);
+        ReflectionTestUtils.setField(router, "minHedgeDelayMs", 50L);
+        ReflectionTestUtils.setField(router, "minSamples", 20);
+        ReflectionTestUtils.setField(router, "coolDownMs", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void slowProviderIsHedgedAndTheFirstAnswerWins() throws InterruptedException {
+        AtomicReference<Attempt<String>> slowAttempt = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        String answer = router.execute((provider, attempt) -> {
+            if (provider == primary) {
+                slowAttempt.set(attempt);
+                waitUntilCancelled(attempt, 5_000);
+                return "primary";
+            }
+            return "fallback";
+        });
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("fallback", answer);
+        assertTrue(elapsedMs >= 200, "hedge fired after " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 2_000, "the slow provider was waited for: " + elapsedMs + " ms");
+        assertTrue(slowAttempt.get().isCancelled());
+        assertEquals(1L, router.getStats().get("hedgesFired"));
+        assertEquals(1L, router.getStats().get("hedgesWon"));
+        assertTrue(primary.isAvailable()); // Losing a race is not a failure
+    }
+
+    @Test
+    void noHedgeWhenTheFirstProviderAnswersInTime() {
+        List<String> called = new CopyOnWriteArrayList<>();
+
+        String answer = router.execute((provider, attempt) -> {
+            called.add(provider.getName());
+            return provider.getName();
+        });
+
+        assertEquals("primary", answer);
+        assertEquals(List.of("primary"), called);
+        assertEquals(0L, router.getStats().get("hedgesFired"));
+    }
+
+    @Test
+    void errorFailsOverToTheNextProvider() {
+        ReflectionTestUtils.setField(router, "hedgingEnabled", false);
+
+        String answer = router.execute((provider, attempt) -> {
+            if (provider == primary) {
+                throw new ResourceAccessException("connection refused");
+            }
+            return "fallback";
+        });
+
+        assertEquals("fallback", answer);
+        assertEquals(1L, router.getStats().get("failovers"));
+        assertFalse(primary.isAvailable());
+    }
+
+    @Test
+    void providerIsSkippedDuringCoolDownAndTriedAgainAfterwards() throws InterruptedException {
+        ReflectionTestUtils.setField(router, "hedgingEnabled", false);
+        List<String> called = new CopyOnWriteArrayList<>();
+        boolean[] primaryDown = { true };
+        LlmRouter.LlmCall<String> call = (provider, attempt) -> {
+            called.add(provider.getName());
+            if (provider == primary && primaryDown[0]) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return provider.getName();
+        };
+
+        assertEquals("fallback", router.execute(call));
+        assertEquals(List.of("primary", "fallback"), called);
+
+        called.clear();
+        primaryDown[0] = false;
+        assertEquals("fallback", router.execute(call));
+        assertEquals(List.of("fallback"), called); // Still cooling down: not even tried
+
+        Thread.sleep(400);
+        called.clear();
+        assertEquals("primary", router.execute(call));
+        assertEquals(List.of("primary"), called);
+    }
+
+    @Test
+    void badRequestDoesNotBenchTheProvider() {
+        ReflectionTestUtils.setField(router, "hedgingEnabled", false);
+
+        String answer = router.execute((provider, attempt) -> {
+            if (provider == primary) {
+                throw new IllegalArgumentException("bad prompt");
+            }
+            return "fallback";
+        });
+
+        assertEquals("fallback", answer);
+        assertTrue(primary.isAvailable());
+        Map<String, Object> stats = primary.getStats();
+        assertEquals(1L, stats.get("failures"));
+    }
+
+    private static void waitUntilCancelled(Attempt<?> attempt, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!attempt.isCancelled() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
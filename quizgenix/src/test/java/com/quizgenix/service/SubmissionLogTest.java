@@ -0,0 +1,104 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.quizgenix.service.SubmissionPipeline.Submission;
+
+/**
+ * Recovery of the submission write-ahead log: what was appended comes back in order,
+ * a record torn by a crash is cut off instead of failing the startup, and segments
+ * are deleted once the database has committed everything in them.
+ */
+class SubmissionLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenReturnsAppendedSubmissionsAndDropsTornTail() throws IOException {
+        SubmissionLog log = newLog();
+        assertEquals(0, log.open().size());
+        long size = log.append(submission(1, 10L, 7L));
+        size = log.append(submission(2, 11L, null));
+        log.sync(size);
+        log.close();
+
+        // Half a record at the end, as left by a crash during append()
+        Files.write(dir.resolve("submissions-0000000000.wal"), new byte[] { 0x51, 0x47, 0x53, 0x31, 0, 0, 0 },
+                StandardOpenOption.APPEND);
+
+        SubmissionLog reopened = newLog();
+        List<Submission> recovered = reopened.open();
+        assertEquals(2, recovered.size());
+        assertEquals(1, recovered.get(0).sequence());
+        assertEquals(10L, recovered.get(0).quizId());
+        assertEquals(7L, recovered.get(0).ownerId());
+        assertArrayEquals(new long[] { 100, 101 }, recovered.get(0).questionIds());
+        assertArrayEquals(new String[] { "Paris", "" }, recovered.get(0).answers());
+        assertNull(recovered.get(1).ownerId());
+        assertEquals(size, reopened.size());
+
+        reopened.reset();
+        reopened.close();
+        assertEquals(0, newLog().open().size());
+    }
+
+    @Test
+    void committedSegmentsAreDeletedWhileNewerOnesAreKept() throws IOException {
+        SubmissionLog log = newLog();
+        ReflectionTestUtils.setField(log, "segmentMb", 0); // Every partly committed segment is closed
+        log.open();
+        log.append(submission(1, 10L, 7L));
+        log.append(submission(2, 11L, 7L));
+
+        log.committed(1); // Sequence 2 is still needed: its segment is closed, not deleted
+        assertEquals(2, log.segments());
+        log.sync(log.append(submission(3, 12L, 7L)));
+
+        log.committed(2);
+        assertEquals(2, log.segments());
+        log.close();
+        List<Submission> recovered = newLog().open();
+        assertEquals(1, recovered.size());
+        assertEquals(3, recovered.get(0).sequence());
+    }
+
+    @Test
+    void idSurvivesReopen() throws IOException {
+        SubmissionLog log = newLog();
+        log.open();
+        String id = log.getId();
+        log.reset();
+        log.close();
+
+        SubmissionLog reopened = newLog();
+        reopened.open();
+        assertEquals(id, reopened.getId());
+        reopened.close();
+    }
+
+    private SubmissionLog newLog() {
+        SubmissionLog log = new SubmissionLog();
+        ReflectionTestUtils.setField(log, "directory", dir.toString());
+        ReflectionTestUtils.setField(log, "fsync", true);
+        ReflectionTestUtils.setField(log, "segmentMb", 16);
+        return log;
+    }
+
+    private static Submission submission(long sequence, Long quizId, Long ownerId) {
+        return new Submission(sequence, quizId, ownerId, 50, 2, new long[] { 100, 101 },
+                new String[] { "Paris", "" });
+    }
+}
@@ -0,0 +1,293 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.quizgenix.exception.SubmissionBusyException;
+import com.quizgenix.service.UserStatsService.ScoreChange;
+import com.quizgenix.service.XpService.XpAward;
+
+/**
+ * The write-behind pipeline against a stub database instead of MySQL: a restart replays
+ * only what the checkpoint of its log has not seen, a database that stays down fails
+ * the startup, a submission saved directly after a failed fsync is not replayed, a full
+ * queue turns into SubmissionBusyException, and one bad submission is dropped without
+ * taking the rest of its batch with it.
+ */
+class SubmissionPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private final StubDatabase database = new StubDatabase();
+    private final List<SubmissionPipeline> started = new ArrayList<>();
+    private volatile boolean fsyncFails;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.open();
+        for (SubmissionPipeline pipeline : started) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void restartReplaysOnlyWhatTheCheckpointHasNotSeen() throws Exception {
+        SubmissionPipeline pipeline = start(10, 60_000);
+        submit(pipeline, 1L);
+        submit(pipeline, 2L);
+        pipeline.flush(5_000);
+        assertEquals(List.of(1L, 2L), database.saved);
+        assertEquals(2L, database.checkpoint);
+
+        database.down = true;
+        submit(pipeline, 3L);
+        submit(pipeline, 4L);
+        submit(pipeline, 5L);
+        stop(pipeline); // The log keeps 3-5
+
+        // As if the batch up to sequence 4 was committed just before the crash
+        database.checkpoint = 4L;
+        assertThrows(IllegalStateException.class, () -> start(10, 300)); // Still down: startup fails
+
+        database.down = false;
+        SubmissionPipeline restarted = start(10, 60_000);
+        assertEquals(List.of(1L, 2L, 5L), database.saved);
+        assertEquals(5L, database.checkpoint);
+
+        submit(restarted, 6L);
+        restarted.flush(5_000);
+        assertEquals(List.of(1L, 2L, 5L, 6L), database.saved);
+        assertEquals(6L, database.checkpoint);
+    }
+
+    @Test
+    void submissionSavedAfterAFailedFsyncIsNotReplayed() throws Exception {
+        SubmissionPipeline pipeline = start(10, 60_000);
+        fsyncFails = true;
+        submit(pipeline, 3L); // Saved on the request thread, though its record is in the log
+        fsyncFails = false;
+        assertEquals(List.of(3L), database.saved);
+        assertEquals(Set.of(1L), database.skipped);
+        stop(pipeline); // The writer never had it: the record is still in the log
+
+        start(10, 60_000);
+        assertEquals(List.of(3L), database.saved);
+        assertTrue(database.skipped.isEmpty()); // Cleared once the log was replayed and emptied
+    }
+
+    @Test
+    void fullQueueMakesSubmittersBusy() throws Exception {
+        SubmissionPipeline pipeline = start(2, 60_000);
+        database.gate = new CountDownLatch(1); // The writer holds on to what it takes
+
+        submit(pipeline, 1L);
+        submit(pipeline, 2L);
+        long start = System.nanoTime();
+        assertThrows(SubmissionBusyException.class, () -> submit(pipeline, 3L));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMs >= 200, "gave up after " + waitedMs + " ms");
+
+        database.open();
+        pipeline.flush(5_000);
+        assertEquals(List.of(1L, 2L), database.saved);
+        submit(pipeline, 4L); // Slots are back once the batch is committed
+        pipeline.flush(5_000);
+        assertEquals(List.of(1L, 2L, 4L), database.saved);
+    }
+
+    @Test
+    void badSubmissionIsDroppedAndTheRestOfItsBatchSaved() throws Exception {
+        SubmissionPipeline pipeline = start(10, 60_000);
+        database.gate = new CountDownLatch(1);
+        database.badQuiz = 13L; // e.g. deleted while its submission was queued
+
+        submit(pipeline, 1L);
+        submit(pipeline, 13L);
+        submit(pipeline, 14L);
+        database.open(); // 13 and 14 are now one batch
+        pipeline.flush(5_000);
+
+        assertEquals(List.of(1L, 14L), database.saved);
+        assertEquals(1L, ReflectionTestUtils.getField(pipeline, "dropped"));
+        assertEquals(3L, database.checkpoint); // Not replayed after a restart either
+    }
+
+    private SubmissionPipeline start(int queueCapacity, long replayTimeoutMs) {
+        SubmissionLog log = new SubmissionLog() {
+            @Override
+            void sync(long upTo) throws IOException {
+                if (fsyncFails) {
+                    throw new IOException("fsync failed");
+                }
+                super.sync(upTo);
+            }
+        };
+        ReflectionTestUtils.setField(log, "directory", dir.toString());
+        ReflectionTestUtils.setField(log, "fsync", true);
+        ReflectionTestUtils.setField(log, "segmentMb", 16);
+
+        SubmissionPipeline pipeline = new SubmissionPipeline();
+        ReflectionTestUtils.setField(pipeline, "submissionLog", log);
+        ReflectionTestUtils.setField(pipeline, "jdbcTemplate", database);
+        ReflectionTestUtils.setField(pipeline, "xpService", database.xpService);
+        ReflectionTestUtils.setField(pipeline, "userStatsService", database.userStatsService);
+        ReflectionTestUtils.setField(pipeline, "transactionManager", new NoTransactions());
+        ReflectionTestUtils.setField(pipeline, "writeBehind", true);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 10);
+        ReflectionTestUtils.setField(pipeline, "enqueueTimeoutMs", 200L);
+        ReflectionTestUtils.setField(pipeline, "readWaitMs", 2_000L);
+        ReflectionTestUtils.setField(pipeline, "replayTimeoutMs", replayTimeoutMs);
+        try {
+            pipeline.afterSingletonsInstantiated();
+        } catch (RuntimeException e) {
+            try {
+                log.close();
+            } catch (Exception ignored) {
+                // Only releasing the file for the next start
+            }
+            throw e;
+        }
+        started.add(pipeline);
+        return pipeline;
+    }
+
+    private void stop(SubmissionPipeline pipeline) throws Exception {
+        started.remove(pipeline);
+        pipeline.stop();
+    }
+
+    private static void submit(SubmissionPipeline pipeline, Long quizId) {
+        pipeline.submit(quizId, 7L, 80, 4, new long[] { quizId * 10 }, new String[] { "Paris" });
+    }
+
+    // Quiz ids in the order their XP was committed, this log's checkpoint row and skip rows;
+    // "down" fails the XP award (inside the transaction), like a lost connection would
+    private static class StubDatabase extends JdbcTemplate {
+
+        final List<Long> saved = new CopyOnWriteArrayList<>();
+        volatile Long checkpoint;
+        final Set<Long> skipped = ConcurrentHashMap.newKeySet();
+        volatile boolean down;
+        volatile Long badQuiz;
+        volatile CountDownLatch gate;
+
+        final XpService xpService = new XpService() {
+            @Override
+            public void award(List<XpAward> awards) {
+                CountDownLatch waitFor = gate;
+                if (waitFor != null) {
+                    try {
+                        waitFor.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (down) {
+                    throw new DataAccessResourceFailureException("database down");
+                }
+                for (XpAward award : awards) {
+                    if (award.quizId().equals(badQuiz)) {
+                        throw new DataIntegrityViolationException("quiz " + badQuiz + " no longer exists");
+                    }
+                }
+                awards.forEach(award -> saved.add(award.quizId()));
+            }
+        };
+
+        final UserStatsService userStatsService = new UserStatsService() {
+            @Override
+            public void scoresChanged(List<ScoreChange> changes) {
+            }
+        };
+
+        void open() {
+            CountDownLatch waitFor = gate;
+            gate = null;
+            if (waitFor != null) {
+                waitFor.countDown();
+            }
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT IGNORE INTO submission_log_checkpoint") && checkpoint == null) {
+                checkpoint = 0L;
+            } else if (sql.startsWith("INSERT INTO submission_log_skip")) {
+                skipped.add((Long) args[1]);
+            } else if (sql.startsWith("DELETE FROM submission_log_skip")) {
+                skipped.clear();
+            } else if (sql.startsWith("UPDATE submission_log_checkpoint") && checkpoint < (Long) args[0]) {
+                checkpoint = (Long) args[0];
+            }
+            return 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            return (T) checkpoint;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            long after = (Long) args[1];
+            return (List<T>) skipped.stream().filter(sequence -> sequence > after).toList();
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch) {
+            // No stored scores: stats are not under test
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                ParameterizedPreparedStatementSetter<T> pss) {
+            return new int[0][];
+        }
+    }
+
+    private static class NoTransactions implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
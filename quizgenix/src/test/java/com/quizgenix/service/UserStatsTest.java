@@ -0,0 +1,111 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.User;
+import com.quizgenix.model.UserStats;
+import com.quizgenix.repository.QuizRepository;
+import com.quizgenix.repository.UserRepository;
+
+/**
+ * The incrementally maintained user_stats row must match a recount from the quiz table
+ * after quizzes are created, scored and re-scored.
+ */
+@SpringBootTest(properties = "quiz.warm-pool.enabled=false")
+class UserStatsTest {
+
+    private static final int QUESTIONS = 4;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuestionSetCache questionSetCache;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void createUser() {
+        owner = userRepository.save(TestData.user("Stats", "Check", TestData.uniqueEmail("stats")));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        quizRepository.deleteAll(quizRepository.findByUser(owner));
+        jdbcTemplate.update("DELETE FROM xp_ledger WHERE user_id = ?", owner.getId());
+        userStatsService.forget(owner.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    void incrementalStatsMatchRecount() throws Exception {
+        String tag = String.valueOf(System.nanoTime());
+        List<Quiz> quizzes = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            quizzes.add(createQuiz((i % 2 == 0 ? "Stats algebra " : "Stats history ") + tag, i));
+        }
+        submit(quizzes.get(0), 4);
+        submit(quizzes.get(1), 1);
+        submit(quizzes.get(2), 3);
+        submit(quizzes.get(2), 2); // Re-submitted: only the latest score counts
+        submissionPipeline.flush(10_000);
+
+        UserStats incremental = userStatsService.get(owner.getId());
+        assertEquals(7, incremental.getQuizCount());
+        assertEquals(100 + 25 + 50, incremental.getScoreSum());
+        assertEquals(7, incremental.getQuizzesThisMonth());
+        assertEquals(UserStats.RECENT_QUIZZES, incremental.getRecentQuizIdList().size());
+        assertEquals(quizzes.get(6).getId(), incremental.getRecentQuizIdList().get(0));
+
+        userStatsService.quizRemoved(owner.getId()); // Recounts this user's row from the quiz table
+        UserStats recounted = userStatsService.get(owner.getId());
+        assertEquals(recounted.getQuizCount(), incremental.getQuizCount());
+        assertEquals(recounted.getScoreSum(), incremental.getScoreSum());
+        assertEquals(recounted.getMonthCount(), incremental.getMonthCount());
+        assertEquals(recounted.getRecentQuizIds(), incremental.getRecentQuizIds());
+        assertEquals(recounted.getBestTopic(), incremental.getBestTopic());
+        assertEquals("Stats algebra " + tag, incremental.getBestTopic());
+    }
+
+    private Quiz createQuiz(String topic, int n) {
+        questionSetCache.put(topic, "Medium", QUESTIONS, TestData.questions(topic + " " + n, QUESTIONS));
+        return quizService.createQuiz(topic, "Medium", QUESTIONS, owner, false);
+    }
+
+    private void submit(Quiz quiz, int correct) {
+        Map<String, String> params = new HashMap<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            params.put("answer_" + q, q < correct ? "Right " + q : "Wrong B");
+        }
+        quizService.scoreQuiz(quiz.getId(), params);
+    }
+}
@@ -0,0 +1,138 @@
+package com.quizgenix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.quizgenix.TestData;
+import com.quizgenix.model.Question;
+import com.quizgenix.model.Quiz;
+import com.quizgenix.model.User;
+import com.quizgenix.repository.QuizRepository;
+import com.quizgenix.repository.UserRepository;
+
+/**
+ * Hundreds of submissions of the same user's quiz at once, racing with saves of the
+ * user entity (as profile or admin edits do). Once the SubmissionPipeline has saved
+ * them, every award must be in users.total_xp and in the ledger exactly once.
+ */
+@SpringBootTest(properties = "quiz.warm-pool.enabled=false")
+class XpConcurrencyTest {
+
+    private static final int QUESTIONS = 5;
+    private static final int SUBMISSIONS = 400;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private CanonicalQuestionService canonicalQuestionService;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private Quiz quiz;
+
+    @BeforeEach
+    void createQuiz() {
+        String tag = String.valueOf(System.nanoTime());
+        owner = userRepository.save(TestData.user("Xp", "Race", TestData.uniqueEmail("xp-race")));
+
+        List<Question> questions = TestData.questions("Xp race " + tag, QUESTIONS);
+        canonicalQuestionService.link(questions);
+
+        quiz = new Quiz();
+        quiz.setTopic("Xp race " + tag);
+        quiz.setDifficulty("Hard"); // 3 XP per correct answer
+        quiz.setTotalQuestions(QUESTIONS);
+        quiz.setCreatedAt(LocalDateTime.now());
+        quiz.setUser(owner);
+        questions.forEach(q -> q.setQuiz(quiz));
+        quiz.setQuestions(questions);
+        quiz = quizRepository.save(quiz);
+        answerKeyCache.put(quiz);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        answerKeyCache.remove(quiz.getId());
+        jdbcTemplate.update("DELETE FROM xp_ledger WHERE user_id = ?", owner.getId());
+        quizRepository.deleteById(quiz.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    void parallelSubmissionsKeepEveryAward() throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put("quizId", String.valueOf(quiz.getId()));
+        for (int i = 0; i < QUESTIONS; i++) {
+            params.put("answer_" + i, i < 4 ? "Right " + i : "Wrong B"); // 4 of 5 correct
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int n = 0; n < SUBMISSIONS; n++) {
+            final int submission = n;
+            results.add(pool.submit(() -> {
+                start.await();
+                quizService.scoreQuiz(quiz.getId(), params);
+                if (submission % 20 == 0) {
+                    // A stale entity save: with read-modify-write this would wipe earlier awards
+                    User stale = userRepository.findById(owner.getId()).orElseThrow();
+                    stale.setLastName("Race " + submission);
+                    userRepository.save(stale);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        submissionPipeline.flush(TimeUnit.MINUTES.toMillis(1));
+
+        int expected = SUBMISSIONS * 4 * 3;
+        Integer total = jdbcTemplate.queryForObject("SELECT total_xp FROM users WHERE id = ?", Integer.class,
+                owner.getId());
+        Integer ledger = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM xp_ledger WHERE user_id = ?", Integer.class, owner.getId());
+        Integer entries = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM xp_ledger WHERE user_id = ?",
+                Integer.class, owner.getId());
+
+        assertEquals(expected, total);
+        assertEquals(expected, ledger);
+        assertEquals(SUBMISSIONS, entries);
+    }
+}